@@ -0,0 +1,26 @@
+package com.reactivespring.loadgen;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line arguments of the form --name=value.
+ */
+public final class Arguments {
+
+    private Arguments() {
+    }
+
+    public static Map<String, String> parse(String... args) {
+        var values = new HashMap<String, String>();
+        for (var arg : args) {
+            if(!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, passed in : " + arg);
+            }
+            var separator = arg.indexOf('=');
+            // the first value wins, so arguments passed on the command line override the ones added by the build
+            values.putIfAbsent(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return values;
+    }
+}
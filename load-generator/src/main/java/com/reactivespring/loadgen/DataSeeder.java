@@ -0,0 +1,70 @@
+package com.reactivespring.loadgen;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Seeds the movie infos 1..movies and their reviews through the NDJSON bulk endpoints of the services.
+ * The movie info ids are numeric as reviews reference them with a Long movieInfoId.
+ */
+@Slf4j
+public class DataSeeder {
+
+    private final WebClient webClient = WebClient.create();
+
+    public void seed(ServiceUrls urls, int movies, int reviewsPerMovie) {
+        var movieInfos = Flux.range(1, movies)
+                .map(DataSeeder::movieInfo);
+        var createdMovieInfos = post(urls.getMoviesInfoUrl() + "/v1/movieinfos/bulk", movieInfos);
+        log.info("Seeded {} of {} movie infos", createdMovieInfos, movies);
+
+        var reviews = Flux.range(1, movies)
+                .flatMapIterable(movieId -> IntStream.range(0, reviewsPerMovie)
+                        .mapToObj(i -> review(movieId, i))
+                        .collect(Collectors.toList()));
+        var createdReviews = post(urls.getReviewsUrl() + "/v1/reviews/bulk", reviews);
+        log.info("Seeded {} of {} reviews", createdReviews, (long) movies * reviewsPerMovie);
+    }
+
+    /**
+     * Posts the records as NDJSON and returns how many of them the service reports as created.
+     */
+    @SuppressWarnings("rawtypes")
+    private long post(String url, Flux<Map<String, Object>> records) {
+        var created = webClient
+                .post()
+                .uri(url)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .body(records, Map.class)
+                .retrieve()
+                .bodyToFlux(Map.class)
+                .filter(result -> "CREATED".equals(result.get("status")))
+                .count()
+                .block();
+        return created == null ? 0 : created;
+    }
+
+    private static Map<String, Object> movieInfo(int movieId) {
+        return Map.of(
+                "movieInfoId", String.valueOf(movieId),
+                "name", "Movie " + movieId,
+                "year", 1980 + movieId % 45,
+                "cast", List.of("Lead Actor " + movieId, "Supporting Actor " + movieId, "Cameo " + movieId),
+                "releaseDate", (1980 + movieId % 45) + "-06-15");
+    }
+
+    private static Map<String, Object> review(int movieId, int index) {
+        return Map.of(
+                "movieInfoId", movieId,
+                "comment", "Review " + index + " of movie " + movieId,
+                "rating", (double) ((movieId + index) % 10));
+    }
+}
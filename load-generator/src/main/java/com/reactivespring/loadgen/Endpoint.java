@@ -0,0 +1,33 @@
+package com.reactivespring.loadgen;
+
+import java.util.Arrays;
+
+/**
+ * The endpoints the load generator drives, each looking up one of the seeded movies.
+ */
+public enum Endpoint {
+
+    MOVIES("movies", "GET /v1/movies/{id}"),
+    MOVIE_INFOS("movieinfos", "GET /v1/movieinfos/{id}"),
+    REVIEWS("reviews", "GET /v1/reviews?movieInfoId={id}");
+
+    private final String key;
+    private final String route;
+
+    Endpoint(String key, String route) {
+        this.key = key;
+        this.route = route;
+    }
+
+    public static Endpoint of(String key) {
+        return Arrays.stream(values())
+                .filter(endpoint -> endpoint.key.equals(key))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown endpoint : " + key
+                        + ", expected one of movies, movieinfos, reviews"));
+    }
+
+    public String getRoute() {
+        return route;
+    }
+}
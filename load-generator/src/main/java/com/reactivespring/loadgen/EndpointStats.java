@@ -0,0 +1,40 @@
+package com.reactivespring.loadgen;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and outcomes of the requests to one endpoint. Latencies are recorded in microseconds from
+ * the time the request was due, not from the time it was sent, so a stalled generator or a full
+ * connection pool shows up in the percentiles instead of hiding them (coordinated omission).
+ */
+public class EndpointStats {
+
+    private static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(2);
+
+    private final Histogram latencies = new ConcurrentHistogram(HIGHEST_LATENCY_MICROS, 3);
+    private final LongAdder errors = new LongAdder();
+
+    public void record(long intendedStartNanos, boolean success) {
+        var micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedStartNanos);
+        latencies.recordValue(Math.min(Math.max(1, micros), HIGHEST_LATENCY_MICROS));
+        if(!success) {
+            errors.increment();
+        }
+    }
+
+    public Histogram getLatencies() {
+        return latencies;
+    }
+
+    public long getRequests() {
+        return latencies.getTotalCount();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+}
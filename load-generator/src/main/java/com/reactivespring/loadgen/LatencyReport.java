@@ -0,0 +1,70 @@
+package com.reactivespring.loadgen;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Throughput and latency percentiles per endpoint, followed by the full HDR percentile distribution
+ * of every endpoint (in milliseconds), which can be plotted with the HdrHistogram plotter.
+ */
+public class LatencyReport {
+
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final int rate;
+    private final Duration elapsed;
+    private final long dropped;
+    private final Map<Endpoint, EndpointStats> stats;
+
+    public LatencyReport(int rate, Duration elapsed, long dropped, Map<Endpoint, EndpointStats> stats) {
+        this.rate = rate;
+        this.elapsed = elapsed;
+        this.dropped = dropped;
+        this.stats = stats;
+    }
+
+    public String render() {
+        var out = new ByteArrayOutputStream();
+        try (var printer = new PrintStream(out, true, StandardCharsets.UTF_8)) {
+            var seconds = Math.max(1, elapsed.toMillis()) / 1000.0;
+            printer.printf("target rate: %d req/s, measured for %.1f s, dropped over maxInFlight: %d%n%n", rate, seconds, dropped);
+            printer.printf("%-34s %9s %7s %12s %9s %9s %9s %9s %9s%n",
+                    "endpoint", "requests", "errors", "throughput/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+            stats.forEach((endpoint, endpointStats) -> {
+                var latencies = endpointStats.getLatencies();
+                printer.printf("%-34s %9d %7d %12.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                        endpoint.getRoute(),
+                        endpointStats.getRequests(),
+                        endpointStats.getErrors(),
+                        endpointStats.getRequests() / seconds,
+                        millis(latencies.getValueAtPercentile(50)),
+                        millis(latencies.getValueAtPercentile(90)),
+                        millis(latencies.getValueAtPercentile(99)),
+                        millis(latencies.getValueAtPercentile(99.9)),
+                        millis(latencies.getMaxValue()));
+            });
+            stats.forEach((endpoint, endpointStats) -> {
+                printer.printf("%n%s%n", endpoint.getRoute());
+                endpointStats.getLatencies().outputPercentileDistribution(printer, MICROS_PER_MILLI);
+            });
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    public void writeTo(Path file) throws IOException {
+        if(file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Files.writeString(file, render());
+    }
+
+    private static double millis(long micros) {
+        return micros / MICROS_PER_MILLI;
+    }
+}
@@ -0,0 +1,126 @@
+package com.reactivespring.loadgen;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drives the services at a constant arrival rate: requests are started on a fixed schedule whether or
+ * not the previous ones have been answered (open model), the way independent users arrive, so a slow
+ * service builds up a queue instead of slowing the generator down. A warm up phase runs first and is
+ * not reported.
+ * Boots the services first when their jars are passed, see {@link LoadGeneratorSettings}.
+ */
+@Slf4j
+public class LoadGenerator {
+
+    private static final long NANOS_PER_SECOND = Duration.ofSeconds(1).toNanos();
+
+    private final LoadGeneratorSettings settings;
+    private final ServiceUrls urls;
+    private final WebClient webClient;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public LoadGenerator(LoadGeneratorSettings settings, ServiceUrls urls) {
+        this.settings = settings;
+        this.urls = urls;
+        var connectionProvider = ConnectionProvider.builder("loadgen")
+                .maxConnections(settings.getMaxInFlight())
+                .pendingAcquireMaxCount(-1)
+                .build();
+        this.webClient = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connectionProvider)))
+                .build();
+    }
+
+    public static void main(String[] args) throws IOException {
+        var settings = LoadGeneratorSettings.parse(args);
+        if(!settings.bootsServices()) {
+            run(settings, new ServiceUrls(settings.getMoviesInfoUrl(), settings.getReviewsUrl(), settings.getMoviesUrl()));
+            return;
+        }
+        var logDirectory = settings.getReport().toAbsolutePath().getParent().resolve("services");
+        try (var launcher = new ServiceLauncher(logDirectory)) {
+            var urls = launcher.start(settings);
+            new DataSeeder().seed(urls, settings.getMovies(), settings.getReviewsPerMovie());
+            run(settings, urls);
+        }
+    }
+
+    private static void run(LoadGeneratorSettings settings, ServiceUrls urls) throws IOException {
+        var loadGenerator = new LoadGenerator(settings, urls);
+        log.info("Warming up for {}s at {} req/s", settings.getWarmupSeconds(), settings.getRate());
+        loadGenerator.drive(settings.getWarmupSeconds());
+        log.info("Measuring for {}s at {} req/s", settings.getDurationSeconds(), settings.getRate());
+        var report = loadGenerator.drive(settings.getDurationSeconds());
+        report.writeTo(settings.getReport());
+        log.info("Latency report written to {}\n{}", settings.getReport().toAbsolutePath(), report.render());
+    }
+
+    /**
+     * Starts rate requests per second for the passed in number of seconds and waits for the last
+     * answer.
+     */
+    public LatencyReport drive(int seconds) {
+        var stats = new EnumMap<Endpoint, EndpointStats>(Endpoint.class);
+        settings.getMix().getEndpoints().forEach(endpoint -> stats.put(endpoint, new EndpointStats()));
+        var dropped = new LongAdder();
+        var periodNanos = NANOS_PER_SECOND / settings.getRate();
+        var requests = (long) settings.getRate() * seconds;
+        var start = System.nanoTime();
+
+        Flux.interval(Duration.ofNanos(periodNanos))
+                .take(requests)
+                // latencies are measured from when the request was due, see EndpointStats
+                .map(tick -> start + (tick + 1) * periodNanos)
+                .onBackpressureDrop(tick -> dropped.increment())
+                .flatMap(intendedStart -> {
+                    if(inFlight.get() >= settings.getMaxInFlight()) {
+                        dropped.increment();
+                        return Mono.empty();
+                    }
+                    var endpoint = settings.getMix().next(ThreadLocalRandom.current());
+                    return request(endpoint, intendedStart, stats.get(endpoint));
+                }, Integer.MAX_VALUE)
+                .blockLast();
+
+        return new LatencyReport(settings.getRate(), Duration.ofNanos(System.nanoTime() - start), dropped.sum(), stats);
+    }
+
+    private Mono<Void> request(Endpoint endpoint, long intendedStart, EndpointStats stats) {
+        var movieId = ThreadLocalRandom.current().nextInt(1, settings.getMovies() + 1);
+        return webClient
+                .get()
+                .uri(uri(endpoint), movieId)
+                .exchangeToMono(response -> response.releaseBody().thenReturn(response.statusCode().is2xxSuccessful()))
+                .onErrorReturn(false)
+                .doOnSubscribe(subscription -> inFlight.incrementAndGet())
+                .doOnNext(success -> stats.record(intendedStart, success))
+                .doFinally(signal -> inFlight.decrementAndGet())
+                .then();
+    }
+
+    private String uri(Endpoint endpoint) {
+        switch (endpoint) {
+            case MOVIES:
+                return urls.getMoviesUrl() + "/v1/movies/{id}";
+            case MOVIE_INFOS:
+                return urls.getMoviesInfoUrl() + "/v1/movieinfos/{id}";
+            case REVIEWS:
+                return urls.getReviewsUrl() + "/v1/reviews?movieInfoId={id}";
+            default:
+                throw new IllegalStateException("Unknown endpoint : " + endpoint);
+        }
+    }
+}
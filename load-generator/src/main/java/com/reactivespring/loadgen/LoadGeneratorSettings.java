@@ -0,0 +1,56 @@
+package com.reactivespring.loadgen;
+
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Settings of a load test, passed as --name=value arguments. When a jar is passed for a service it is
+ * booted against an embedded Mongo, otherwise the service is expected to run at its url.
+ */
+@Getter
+public class LoadGeneratorSettings {
+
+    // requests started per second, whatever the latency of the previous ones (open model)
+    private final int rate;
+    private final int warmupSeconds;
+    private final int durationSeconds;
+    // cap on requests waiting for a response, ticks beyond it are counted as dropped
+    private final int maxInFlight;
+    private final TrafficMix mix;
+    private final int movies;
+    private final int reviewsPerMovie;
+    private final Path report;
+    private final String moviesInfoJar;
+    private final String reviewsJar;
+    private final String moviesJar;
+    private final String moviesInfoUrl;
+    private final String reviewsUrl;
+    private final String moviesUrl;
+
+    private LoadGeneratorSettings(Map<String, String> args) {
+        this.rate = Integer.parseInt(args.getOrDefault("rate", "200"));
+        this.warmupSeconds = Integer.parseInt(args.getOrDefault("warmupSeconds", "10"));
+        this.durationSeconds = Integer.parseInt(args.getOrDefault("durationSeconds", "60"));
+        this.maxInFlight = Integer.parseInt(args.getOrDefault("maxInFlight", "2000"));
+        this.mix = TrafficMix.parse(args.getOrDefault("mix", "movies=60,movieinfos=20,reviews=20"));
+        this.movies = Integer.parseInt(args.getOrDefault("movies", "1000"));
+        this.reviewsPerMovie = Integer.parseInt(args.getOrDefault("reviewsPerMovie", "10"));
+        this.report = Path.of(args.getOrDefault("report", "latency-report.txt"));
+        this.moviesInfoJar = args.get("moviesInfoJar");
+        this.reviewsJar = args.get("reviewsJar");
+        this.moviesJar = args.get("moviesJar");
+        this.moviesInfoUrl = args.getOrDefault("moviesInfoUrl", "http://localhost:8080");
+        this.reviewsUrl = args.getOrDefault("reviewsUrl", "http://localhost:8081");
+        this.moviesUrl = args.getOrDefault("moviesUrl", "http://localhost:8082");
+    }
+
+    public static LoadGeneratorSettings parse(String... args) {
+        return new LoadGeneratorSettings(Arguments.parse(args));
+    }
+
+    public boolean bootsServices() {
+        return moviesInfoJar != null && reviewsJar != null && moviesJar != null;
+    }
+}
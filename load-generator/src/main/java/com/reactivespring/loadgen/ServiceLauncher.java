@@ -0,0 +1,110 @@
+package com.reactivespring.loadgen;
+
+import de.flapdoodle.embed.mongo.MongodExecutable;
+import de.flapdoodle.embed.mongo.MongodStarter;
+import de.flapdoodle.embed.mongo.config.MongodConfig;
+import de.flapdoodle.embed.mongo.config.Net;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.process.runtime.Network;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.util.retry.Retry;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boots an embedded Mongo and the three services, each from its boot jar in a JVM of its own (the
+ * services share package and class names, they cannot share a classpath), wired to each other and to
+ * the embedded Mongo. Everything is stopped on close.
+ */
+@Slf4j
+public class ServiceLauncher implements AutoCloseable {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+    private final List<Process> processes = new ArrayList<>();
+    private final Path logDirectory;
+    private MongodExecutable mongod;
+
+    public ServiceLauncher(Path logDirectory) {
+        this.logDirectory = logDirectory;
+    }
+
+    /**
+     * Starts Mongo and the services on free ports, returns once all of them report UP on their health
+     * endpoint.
+     */
+    public ServiceUrls start(LoadGeneratorSettings settings) throws IOException {
+        Files.createDirectories(logDirectory);
+        var mongoPort = Network.getFreeServerPort();
+        mongod = MongodStarter.getDefaultInstance().prepare(MongodConfig.builder()
+                .version(Version.Main.PRODUCTION)
+                .net(new Net(mongoPort, Network.localhostIsIPv6()))
+                .build());
+        mongod.start();
+        var mongoUri = "mongodb://localhost:" + mongoPort + "/loadtest";
+        log.info("Embedded Mongo started at {}", mongoUri);
+
+        var moviesInfoUrl = "http://localhost:" + Network.getFreeServerPort();
+        var reviewsUrl = "http://localhost:" + Network.getFreeServerPort();
+        var moviesUrl = "http://localhost:" + Network.getFreeServerPort();
+        boot("movies-info-service", settings.getMoviesInfoJar(), moviesInfoUrl, "--spring.data.mongodb.uri=" + mongoUri);
+        boot("movies-review-service", settings.getReviewsJar(), reviewsUrl, "--spring.data.mongodb.uri=" + mongoUri);
+        boot("movies-service", settings.getMoviesJar(), moviesUrl,
+                "--restClient.moviesInfoUrl=" + moviesInfoUrl + "/v1/movieinfos",
+                "--restClient.reviewsUrl=" + reviewsUrl + "/v1/reviews");
+
+        var urls = new ServiceUrls(moviesInfoUrl, reviewsUrl, moviesUrl);
+        awaitHealthy(moviesInfoUrl);
+        awaitHealthy(reviewsUrl);
+        awaitHealthy(moviesUrl);
+        return urls;
+    }
+
+    private void boot(String service, String jar, String url, String... args) throws IOException {
+        var command = new ArrayList<String>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-jar");
+        command.add(jar);
+        command.add("--server.port=" + url.substring(url.lastIndexOf(':') + 1));
+        command.addAll(List.of(args));
+        var logFile = logDirectory.resolve(service + ".log").toFile();
+        processes.add(new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(logFile)
+                .start());
+        log.info("Booting {} at {}, logging to {}", service, url, logFile);
+    }
+
+    private static void awaitHealthy(String url) {
+        WebClient.create(url)
+                .get()
+                .uri("/actuator/health")
+                .retrieve()
+                .toBodilessEntity()
+                .retryWhen(Retry.fixedDelay(Long.MAX_VALUE, Duration.ofMillis(500)))
+                .timeout(STARTUP_TIMEOUT)
+                .block();
+        log.info("{} is up", url);
+    }
+
+    @Override
+    public void close() {
+        processes.forEach(Process::destroy);
+        for (var process : processes) {
+            try {
+                process.waitFor();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if(mongod != null) {
+            mongod.stop();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.reactivespring.loadgen;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Base urls of the three services under test.
+ */
+@Getter
+@AllArgsConstructor
+public class ServiceUrls {
+
+    private final String moviesInfoUrl;
+    private final String reviewsUrl;
+    private final String moviesUrl;
+}
@@ -0,0 +1,62 @@
+package com.reactivespring.loadgen;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Weighted mix of the endpoints to drive, e.g. movies=60,movieinfos=20,reviews=20.
+ */
+public class TrafficMix {
+
+    private final List<Endpoint> endpoints;
+    private final int[] cumulativeWeights;
+
+    private TrafficMix(List<Endpoint> endpoints, List<Integer> weights) {
+        this.endpoints = Collections.unmodifiableList(endpoints);
+        this.cumulativeWeights = new int[weights.size()];
+        var total = 0;
+        for (int i = 0; i < weights.size(); i++) {
+            total += weights.get(i);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    public static TrafficMix parse(String mix) {
+        var endpoints = new ArrayList<Endpoint>();
+        var weights = new ArrayList<Integer>();
+        for (var entry : mix.split(",")) {
+            var parts = entry.trim().split("=");
+            if(parts.length != 2) {
+                throw new IllegalArgumentException("Expected endpoint=weight, passed in : " + entry);
+            }
+            var weight = Integer.parseInt(parts[1].trim());
+            if(weight < 0) {
+                throw new IllegalArgumentException("Weight of " + parts[0] + " is negative : " + weight);
+            }
+            if(weight > 0) {
+                endpoints.add(Endpoint.of(parts[0].trim()));
+                weights.add(weight);
+            }
+        }
+        if(endpoints.isEmpty()) {
+            throw new IllegalArgumentException("The traffic mix has no endpoint with a positive weight : " + mix);
+        }
+        return new TrafficMix(endpoints, weights);
+    }
+
+    public Endpoint next(Random random) {
+        var pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if(pick < cumulativeWeights[i]) {
+                return endpoints.get(i);
+            }
+        }
+        throw new IllegalStateException("No endpoint for " + pick);
+    }
+
+    public List<Endpoint> getEndpoints() {
+        return endpoints;
+    }
+}
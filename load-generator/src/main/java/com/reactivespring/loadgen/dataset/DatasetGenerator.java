@@ -0,0 +1,234 @@
+package com.reactivespring.loadgen.dataset;
+
+import org.bson.Document;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+/**
+ * Deterministic movie info, review and review stats documents, shaped the way the services store them.
+ * The same seed always yields the same documents, in any order and from any thread: every document
+ * draws from a random generator seeded with the dataset seed and its own position only.
+ * <ul>
+ * <li>review counts follow a Zipf law over the movies, a few blockbusters get most of the reviews and
+ * the long tail gets one or none, the popular movies being spread over the id range</li>
+ * <li>cast lists are log-normal, 12 names for the median movie, up to 150</li>
+ * <li>release dates lean towards recent years, from 1920 to 2025</li>
+ * <li>ratings scatter around a per movie quality, comments run from a phrase to a few paragraphs</li>
+ * </ul>
+ * Movie info ids are 1..movies as reviews reference them with a Long movieInfoId.
+ */
+public class DatasetGenerator {
+
+    static final String MOVIE_INFO_CLASS = "com.reactivespring.domain.MovieInfo";
+    static final String REVIEW_CLASS = "com.reactivespring.domain.Review";
+    static final String REVIEW_STATS_CLASS = "com.reactivespring.domain.ReviewStats";
+
+    static final int MAX_CAST_SIZE = 150;
+    static final int EARLIEST_YEAR = 1920;
+    static final int LATEST_YEAR = 2025;
+
+    private static final String[] TITLE_WORDS = {"Dark", "Knight", "Rises", "Last", "Night", "City", "Silent", "Storm",
+            "Return", "Empire", "Shadow", "River", "Lost", "Kingdom", "Iron", "Summer", "Winter", "Code", "Road", "Star",
+            "Secret", "Garden", "Fire", "Legend", "Ocean", "Mirror", "Ghost", "Hunter", "Dream", "Machine"};
+    private static final String[] FIRST_NAMES = {"Christian", "Michael", "Heath", "Tom", "Anne", "Gary", "Morgan",
+            "Scarlett", "Cillian", "Marion", "Joseph", "Emma", "Denzel", "Viola", "Keanu", "Carrie", "Samuel", "Natalie",
+            "Idris", "Florence", "Oscar", "Lupita", "Daniel", "Saoirse", "Mahershala", "Zoe", "Jake", "Tilda", "Rami", "Olivia"};
+    private static final String[] LAST_NAMES = {"Bale", "Caine", "Ledger", "Hardy", "Hathaway", "Oldman", "Freeman",
+            "Johansson", "Murphy", "Cotillard", "Gordon-Levitt", "Stone", "Washington", "Davis", "Reeves", "Moss", "Jackson",
+            "Portman", "Elba", "Pugh", "Isaac", "Nyongo", "Kaluuya", "Ronan", "Ali", "Saldana", "Gyllenhaal", "Swinton",
+            "Malek", "Colman"};
+    private static final String[] PHRASES = {"Great pacing.", "The score stays with you.", "Overlong in the middle act.",
+            "A cast at the top of its game.", "Beautifully shot.", "The plot falls apart in the end.",
+            "Worth it for the lead performance alone.", "Not as good as the first one.", "Instant classic.",
+            "The dialogue feels dated now.", "Stunning practical effects.", "Could not look away."};
+
+    private final long seed;
+    private final int movies;
+    private final int[] reviewCounts;
+
+    public DatasetGenerator(long seed, int movies, long reviews, double zipfExponent) {
+        this.seed = seed;
+        this.movies = movies;
+        this.reviewCounts = zipfCounts(seed, movies, reviews, zipfExponent);
+    }
+
+    public Flux<Document> movieInfos() {
+        return Flux.range(1, movies)
+                .map(this::movieInfo);
+    }
+
+    public Flux<Document> reviews() {
+        return Flux.range(1, movies)
+                .concatMap(movieId -> Flux.range(0, reviewCount(movieId))
+                        .map(index -> review(movieId, index)));
+    }
+
+    /**
+     * The stats the review service keeps per reviewed movie, computed from the generated ratings.
+     */
+    public Flux<Document> reviewStats() {
+        return Flux.range(1, movies)
+                .filter(movieId -> reviewCount(movieId) > 0)
+                .map(this::reviewStats);
+    }
+
+    public int reviewCount(int movieId) {
+        return reviewCounts[movieId - 1];
+    }
+
+    Document movieInfo(int movieId) {
+        var random = random(movieId, -1);
+        var year = releaseYear(random);
+        var releaseDate = LocalDate.ofYearDay(year, 1 + random.nextInt(Year.of(year).length()));
+        return new Document("_id", String.valueOf(movieId))
+                .append("name", title(random, movieId))
+                .append("year", year)
+                .append("cast", cast(random))
+                // stored the way Spring Data converts a LocalDate
+                .append("releaseDate", Date.from(releaseDate.atStartOfDay(ZoneId.systemDefault()).toInstant()))
+                .append("version", 0L)
+                .append("_class", MOVIE_INFO_CLASS);
+    }
+
+    Document review(int movieId, int index) {
+        var random = random(movieId, index);
+        var rating = rating(movieId, random);
+        return new Document("movieInfoId", (long) movieId)
+                .append("comment", comment(random))
+                .append("rating", rating)
+                .append("_class", REVIEW_CLASS);
+    }
+
+    Document reviewStats(int movieId) {
+        var count = reviewCount(movieId);
+        var sum = 0.0;
+        var min = Double.MAX_VALUE;
+        var max = -Double.MAX_VALUE;
+        var histogram = new TreeMap<String, Long>();
+        for (int index = 0; index < count; index++) {
+            // the rating is the first draw of the review, no need to generate the rest of it
+            var rating = rating(movieId, random(movieId, index));
+            sum += rating;
+            min = Math.min(min, rating);
+            max = Math.max(max, rating);
+            histogram.merge(String.valueOf((long) Math.floor(rating)), 1L, Long::sum);
+        }
+        var buckets = new Document();
+        histogram.forEach(buckets::append);
+        return new Document("_id", (long) movieId)
+                .append("count", (long) count)
+                .append("sum", sum)
+                .append("min", min)
+                .append("max", max)
+                .append("histogram", buckets)
+                .append("_class", REVIEW_STATS_CLASS);
+    }
+
+    /**
+     * Splits total reviews over the movies in proportion to 1/rank^exponent, exactly, the remainder
+     * going to the top ranks. Ranks are then shuffled over the movie ids.
+     */
+    static int[] zipfCounts(long seed, int movies, long total, double exponent) {
+        var weights = new double[movies];
+        var harmonic = 0.0;
+        for (int rank = 1; rank <= movies; rank++) {
+            weights[rank - 1] = 1.0 / Math.pow(rank, exponent);
+            harmonic += weights[rank - 1];
+        }
+        var countsByRank = new long[movies];
+        var assigned = 0L;
+        for (int rank = 0; rank < movies; rank++) {
+            countsByRank[rank] = (long) Math.floor(total * weights[rank] / harmonic);
+            assigned += countsByRank[rank];
+        }
+        for (int rank = 0; assigned < total; rank = (rank + 1) % movies, assigned++) {
+            countsByRank[rank]++;
+        }
+
+        var movieIdsByRank = new int[movies];
+        for (int i = 0; i < movies; i++) {
+            movieIdsByRank[i] = i;
+        }
+        var random = new SplittableRandom(seed);
+        for (int i = movies - 1; i > 0; i--) {
+            var j = random.nextInt(i + 1);
+            var swap = movieIdsByRank[i];
+            movieIdsByRank[i] = movieIdsByRank[j];
+            movieIdsByRank[j] = swap;
+        }
+
+        var counts = new int[movies];
+        for (int rank = 0; rank < movies; rank++) {
+            counts[movieIdsByRank[rank]] = Math.toIntExact(countsByRank[rank]);
+        }
+        return counts;
+    }
+
+    private SplittableRandom random(int movieId, int index) {
+        return new SplittableRandom(mix(seed * 0x9E3779B97F4A7C15L + mix(((long) movieId << 32) ^ (index & 0xFFFFFFFFL))));
+    }
+
+    private static String title(SplittableRandom random, int movieId) {
+        var words = 1 + random.nextInt(3);
+        var title = new StringBuilder("The");
+        for (int i = 0; i < words; i++) {
+            title.append(' ').append(TITLE_WORDS[random.nextInt(TITLE_WORDS.length)]);
+        }
+        // titles repeat across remakes and sequels, the id keeps them apart
+        return title.append(' ').append(movieId).toString();
+    }
+
+    static int releaseYear(SplittableRandom random) {
+        // exponential age with a mean of 18 years
+        var age = (int) (-18 * Math.log(1 - random.nextDouble()));
+        return Math.max(EARLIEST_YEAR, LATEST_YEAR - age);
+    }
+
+    static List<String> cast(SplittableRandom random) {
+        var size = (int) Math.round(Math.exp(Math.log(12) + 0.6 * gaussian(random)));
+        size = Math.max(1, Math.min(MAX_CAST_SIZE, size));
+        var cast = new ArrayList<String>(size);
+        for (int i = 0; i < size; i++) {
+            cast.add(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+        }
+        return cast;
+    }
+
+    private double rating(int movieId, SplittableRandom random) {
+        var quality = 6.5 + 1.2 * gaussian(random(movieId, -2));
+        var rating = quality + 1.8 * gaussian(random);
+        return Math.round(Math.max(0, Math.min(10, rating)) * 10) / 10.0;
+    }
+
+    private static String comment(SplittableRandom random) {
+        var phrases = (int) Math.max(1, Math.min(60, Math.round(Math.exp(Math.log(3) + 0.9 * gaussian(random)))));
+        var comment = new StringBuilder();
+        for (int i = 0; i < phrases; i++) {
+            if(i > 0) {
+                comment.append(' ');
+            }
+            comment.append(PHRASES[random.nextInt(PHRASES.length)]);
+        }
+        return comment.toString();
+    }
+
+    // SplittableRandom has no nextGaussian before Java 17, Box-Muller
+    private static double gaussian(SplittableRandom random) {
+        return Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+
+    // finalizer of SplitMix64, spreads close seeds over the whole long range
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,66 @@
+package com.reactivespring.loadgen.dataset;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.reactivestreams.client.MongoClients;
+import com.reactivespring.loadgen.Arguments;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates a dataset with {@link DatasetGenerator} and loads it into the movieInfo, review and
+ * reviewStats collections, e.g.
+ * ./gradlew :load-generator:loadDataset --args='--mongoUri=mongodb://localhost:27017/local --movies=1000000 --reviews=50000000'
+ * The collections are dropped first unless --drop=false, load before starting the services so their
+ * indexes are built once over the loaded documents rather than maintained on every insert.
+ */
+@Slf4j
+public class DatasetLoader {
+
+    private static final long PROGRESS_EVERY = 1_000_000;
+
+    public static void main(String[] args) {
+        var arguments = Arguments.parse(args);
+        var mongoUri = new ConnectionString(arguments.getOrDefault("mongoUri", "mongodb://localhost:27017/local"));
+        var movies = Integer.parseInt(arguments.getOrDefault("movies", "1000000"));
+        var reviews = Long.parseLong(arguments.getOrDefault("reviews", "50000000"));
+        var seed = Long.parseLong(arguments.getOrDefault("seed", "42"));
+        var zipfExponent = Double.parseDouble(arguments.getOrDefault("zipfExponent", "1.1"));
+        var batchSize = Integer.parseInt(arguments.getOrDefault("batchSize", "5000"));
+        var concurrency = Integer.parseInt(arguments.getOrDefault("concurrency", "8"));
+        var drop = Boolean.parseBoolean(arguments.getOrDefault("drop", "true"));
+
+        var generator = new DatasetGenerator(seed, movies, reviews, zipfExponent);
+        try (var client = MongoClients.create(mongoUri)) {
+            var database = client.getDatabase(mongoUri.getDatabase() == null ? "local" : mongoUri.getDatabase());
+            var loader = new MongoBulkLoader(database, batchSize, concurrency);
+            if(drop) {
+                loader.drop(List.of("movieInfo", "review", "reviewStats")).block();
+            }
+            load(loader, "movieInfo", generator.movieInfos());
+            load(loader, "review", generator.reviews());
+            load(loader, "reviewStats", generator.reviewStats());
+        }
+    }
+
+    private static void load(MongoBulkLoader loader, String collectionName, Flux<Document> documents) {
+        var start = System.nanoTime();
+        var nextProgress = new AtomicLong(PROGRESS_EVERY);
+        var inserted = loader.load(collectionName, documents)
+                .doOnNext(count -> {
+                    if(count >= nextProgress.get()) {
+                        log.info("{} : {} documents", collectionName, count);
+                        nextProgress.set((count / PROGRESS_EVERY + 1) * PROGRESS_EVERY);
+                    }
+                })
+                .blockLast();
+        var elapsed = Duration.ofNanos(System.nanoTime() - start);
+        var total = inserted == null ? 0 : inserted;
+        log.info("{} : loaded {} documents in {}s, {} documents/s", collectionName, total, elapsed.toSeconds(),
+                total * 1000 / Math.max(1, elapsed.toMillis()));
+    }
+}
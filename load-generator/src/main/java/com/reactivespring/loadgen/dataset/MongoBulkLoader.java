@@ -0,0 +1,45 @@
+package com.reactivespring.loadgen.dataset;
+
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.reactivestreams.client.MongoDatabase;
+import org.bson.Document;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Inserts documents in unordered batches of batchSize with up to concurrency batches in flight, so the
+ * server can apply them in parallel and the generator never waits for a single round trip.
+ */
+public class MongoBulkLoader {
+
+    private final MongoDatabase database;
+    private final int batchSize;
+    private final int concurrency;
+
+    public MongoBulkLoader(MongoDatabase database, int batchSize, int concurrency) {
+        this.database = database;
+        this.batchSize = batchSize;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Emits the running number of inserted documents after every batch.
+     */
+    public Flux<Long> load(String collectionName, Flux<Document> documents) {
+        var collection = database.getCollection(collectionName);
+        var options = new InsertManyOptions().ordered(false).bypassDocumentValidation(true);
+        return documents
+                .buffer(batchSize)
+                .flatMap(batch -> Mono.from(collection.insertMany(batch, options)).thenReturn(batch.size()), concurrency)
+                .scan(0L, (inserted, batch) -> inserted + batch)
+                .skip(1);
+    }
+
+    public Mono<Void> drop(List<String> collectionNames) {
+        return Flux.fromIterable(collectionNames)
+                .concatMap(name -> Mono.from(database.getCollection(name).drop()))
+                .then();
+    }
+}
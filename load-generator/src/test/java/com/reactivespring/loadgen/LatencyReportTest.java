@@ -0,0 +1,31 @@
+package com.reactivespring.loadgen;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.EnumMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyReportTest {
+
+    @Test
+    void render() {
+        var movies = new EndpointStats();
+        var now = System.nanoTime();
+        movies.record(now - Duration.ofMillis(20).toNanos(), true);
+        movies.record(now - Duration.ofMillis(40).toNanos(), false);
+        var stats = new EnumMap<Endpoint, EndpointStats>(Endpoint.class);
+        stats.put(Endpoint.MOVIES, movies);
+
+        var report = new LatencyReport(100, Duration.ofSeconds(2), 3, stats).render();
+
+        assertEquals(2, movies.getRequests());
+        assertEquals(1, movies.getErrors());
+        assertTrue(report.contains("dropped over maxInFlight: 3"));
+        assertTrue(report.contains("GET /v1/movies/{id}"));
+        // the full HDR percentile distribution follows the summary
+        assertTrue(report.contains("1/(1-Percentile)"));
+    }
+}
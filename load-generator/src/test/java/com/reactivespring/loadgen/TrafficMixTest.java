@@ -0,0 +1,43 @@
+package com.reactivespring.loadgen;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrafficMixTest {
+
+    @Test
+    void next_followsWeights() {
+        var mix = TrafficMix.parse("movies=60, movieinfos=30, reviews=10");
+        var random = new Random(42);
+        var counts = new EnumMap<Endpoint, Integer>(Endpoint.class);
+
+        for (int i = 0; i < 100_000; i++) {
+            counts.merge(mix.next(random), 1, Integer::sum);
+        }
+
+        assertTrue(Math.abs(counts.get(Endpoint.MOVIES) - 60_000) < 1_000);
+        assertTrue(Math.abs(counts.get(Endpoint.MOVIE_INFOS) - 30_000) < 1_000);
+        assertTrue(Math.abs(counts.get(Endpoint.REVIEWS) - 10_000) < 1_000);
+    }
+
+    @Test
+    void parse_skipsZeroWeights() {
+        var mix = TrafficMix.parse("movies=1,movieinfos=0");
+
+        assertEquals(List.of(Endpoint.MOVIES), mix.getEndpoints());
+    }
+
+    @Test
+    void parse_invalid() {
+        assertThrows(IllegalArgumentException.class, () -> TrafficMix.parse("movies"));
+        assertThrows(IllegalArgumentException.class, () -> TrafficMix.parse("ratings=10"));
+        assertThrows(IllegalArgumentException.class, () -> TrafficMix.parse("movies=0"));
+    }
+}
@@ -0,0 +1,91 @@
+package com.reactivespring.loadgen.dataset;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DatasetGeneratorTest {
+
+    @Test
+    void sameSeed_sameDocuments() {
+        var first = new DatasetGenerator(42, 100, 1_000, 1.1);
+        var second = new DatasetGenerator(42, 100, 1_000, 1.1);
+        var otherSeed = new DatasetGenerator(7, 100, 1_000, 1.1);
+
+        assertEquals(first.movieInfos().collectList().block(), second.movieInfos().collectList().block());
+        assertEquals(first.reviews().collectList().block(), second.reviews().collectList().block());
+        assertNotEquals(first.movieInfos().collectList().block(), otherSeed.movieInfos().collectList().block());
+    }
+
+    @Test
+    void zipfCounts_exactTotalAndSkewed() {
+        var counts = DatasetGenerator.zipfCounts(42, 10_000, 1_000_000, 1.1);
+
+        assertEquals(1_000_000, Arrays.stream(counts).asLongStream().sum());
+        var sorted = Arrays.stream(counts).sorted().toArray();
+        // the most reviewed movie gets more than 10% of the reviews, the median one not a thousandth of that
+        assertTrue(sorted[sorted.length - 1] > 100_000);
+        assertTrue(sorted[sorted.length / 2] < sorted[sorted.length - 1] / 1000);
+        // the blockbusters are spread over the ids rather than being the first ones
+        assertTrue(counts[0] < sorted[sorted.length - 1]);
+    }
+
+    @Test
+    void reviews_matchCountsAndStats() {
+        var generator = new DatasetGenerator(42, 50, 2_000, 1.1);
+
+        StepVerifier.create(generator.reviews())
+                .expectNextCount(2_000)
+                .verifyComplete();
+
+        var stats = generator.reviewStats().collectList().block();
+        assert stats != null;
+        assertEquals(2_000L, stats.stream().mapToLong(document -> document.getLong("count")).sum());
+        var topStats = stats.stream().max((left, right) -> Long.compare(left.getLong("count"), right.getLong("count"))).get();
+        var movieId = topStats.getLong("_id").intValue();
+        var ratings = generator.reviews()
+                .filter(review -> review.getLong("movieInfoId") == movieId)
+                .map(review -> review.getDouble("rating"))
+                .collectList()
+                .block();
+        assert ratings != null;
+        assertEquals(ratings.size(), topStats.getLong("count").intValue());
+        assertEquals(ratings.stream().mapToDouble(Double::doubleValue).sum(), topStats.getDouble("sum"), 1e-6);
+        assertEquals((long) ratings.size(), ((Document) topStats.get("histogram")).values().stream()
+                .mapToLong(count -> (Long) count).sum());
+    }
+
+    @Test
+    void movieInfos_realisticShapes() {
+        var generator = new DatasetGenerator(42, 2_000, 0, 1.1);
+
+        var movieInfos = generator.movieInfos().collectList().block();
+        assert movieInfos != null;
+        var castSizes = movieInfos.stream().mapToInt(movieInfo -> movieInfo.getList("cast", String.class).size()).sorted().toArray();
+        assertTrue(castSizes[0] >= 1);
+        assertTrue(castSizes[castSizes.length - 1] <= DatasetGenerator.MAX_CAST_SIZE);
+        assertTrue(castSizes[castSizes.length / 2] >= 9 && castSizes[castSizes.length / 2] <= 15);
+        var years = movieInfos.stream().mapToInt(movieInfo -> movieInfo.getInteger("year")).toArray();
+        assertTrue(Arrays.stream(years).allMatch(year -> year >= DatasetGenerator.EARLIEST_YEAR && year <= DatasetGenerator.LATEST_YEAR));
+        // more recent releases than old ones
+        assertTrue(Arrays.stream(years).filter(year -> year >= 2000).count() > Arrays.stream(years).filter(year -> year < 2000).count());
+        assertEquals("1", movieInfos.get(0).getString("_id"));
+    }
+
+    @Test
+    void cast_bounded() {
+        var random = new SplittableRandom(1);
+        for (int i = 0; i < 10_000; i++) {
+            List<String> cast = DatasetGenerator.cast(random);
+            assertTrue(cast.size() >= 1 && cast.size() <= DatasetGenerator.MAX_CAST_SIZE);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.reactivespring.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.reactivespring.domain.MovieInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Jackson encode/decode of a MovieInfo, as done for every request and response body of the service.
+ * The cast sizes cover a typical billing block and a full ensemble credit list.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class MovieInfoJsonBenchmark {
+
+    @Param({"5", "60"})
+    int castSize;
+
+    private ObjectMapper objectMapper;
+    private MovieInfo movieInfo;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        // configured like the ObjectMapper of Spring Boot
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        var cast = IntStream.range(0, castSize)
+                .mapToObj(i -> "Cast Member Number " + i)
+                .collect(Collectors.toList());
+        movieInfo = new MovieInfo("61234f0c9a1b2c3d4e5f6a7b", "The Dark Knight", 2008, cast, LocalDate.parse("2008-07-18"));
+        json = objectMapper.writeValueAsBytes(movieInfo);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return objectMapper.writeValueAsBytes(movieInfo);
+    }
+
+    @Benchmark
+    public MovieInfo decode() throws IOException {
+        return objectMapper.readValue(json, MovieInfo.class);
+    }
+}
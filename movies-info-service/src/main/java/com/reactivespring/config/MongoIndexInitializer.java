@@ -0,0 +1,87 @@
+package com.reactivespring.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Ensures the indexes declared on the entity of every repository, e.g. the name, year and year_name
+ * indexes of MovieInfo, before the application is ready. Startup fails if an index can not be built,
+ * rather than serving the lookups from collection scans. A warning is logged for every derived query
+ * of a repository filtering on a field no index starts with, e.g. a new findByCast without an index.
+ * Nothing in here is specific to this service, movies-review-service keeps the same class as the two
+ * services are built and deployed on their own.
+ */
+@Component
+@Slf4j
+public class MongoIndexInitializer implements ApplicationRunner {
+
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+    private ApplicationContext applicationContext;
+
+    public MongoIndexInitializer(ReactiveMongoTemplate reactiveMongoTemplate, ApplicationContext applicationContext) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.applicationContext = applicationContext;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        ensureIndexes().block();
+    }
+
+    public Mono<Void> ensureIndexes() {
+        var repositories = new Repositories(applicationContext);
+        return Flux.<Class<?>>fromIterable(repositories)
+                .concatMap(entityType -> ensureIndexes(entityType,
+                        repositories.getRequiredRepositoryInformation(entityType).getRepositoryInterface()))
+                .then();
+    }
+
+    private Mono<Void> ensureIndexes(Class<?> entityType, Class<?> repositoryType) {
+        var indexOps = reactiveMongoTemplate.indexOps(entityType);
+        var indexResolver = IndexResolver.create(reactiveMongoTemplate.getConverter().getMappingContext());
+        return Flux.<IndexDefinition>fromIterable(indexResolver.resolveIndexFor(entityType))
+                .concatMap(indexOps::ensureIndex)
+                .doOnNext(indexName -> log.info("Ensured index {} for {}", indexName, entityType.getSimpleName()))
+                .thenMany(indexOps.getIndexInfo())
+                .collectList()
+                .doOnNext(indexes -> reportUnindexedQueries(entityType, repositoryType, indexes))
+                .then();
+    }
+
+    private void reportUnindexedQueries(Class<?> entityType, Class<?> repositoryType, List<IndexInfo> indexes) {
+        var entity = reactiveMongoTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(entityType);
+        var leadingFields = indexes.stream()
+                .map(index -> index.getIndexFields().get(0).getKey())
+                .collect(Collectors.toSet());
+        for (Method method : repositoryType.getDeclaredMethods()) {
+            PartTree partTree;
+            try {
+                partTree = new PartTree(method.getName(), entityType);
+            } catch (RuntimeException e) {
+                continue; // not a derived query
+            }
+            partTree.getParts().forEach(part -> {
+                var field = entity.getRequiredPersistentProperty(part.getProperty().getSegment()).getFieldName();
+                if(!leadingFields.contains(field)) {
+                    log.warn("{}.{} queries {} which no index of {} starts with",
+                            repositoryType.getSimpleName(), method.getName(), field, entityType.getSimpleName());
+                }
+            });
+        }
+    }
+}
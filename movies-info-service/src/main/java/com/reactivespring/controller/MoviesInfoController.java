@@ -1,15 +1,18 @@
 package com.reactivespring.controller;
 
+import com.reactivespring.domain.BulkItemResult;
 import com.reactivespring.domain.MovieInfo;
 import com.reactivespring.service.MovieInfoService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import javax.validation.Valid;
+import java.util.List;
 
 @RestController
 @RequestMapping("/v1")
@@ -22,21 +25,28 @@ public class MoviesInfoController {
         this.movieInfoService = movieInfoService;
     }
 
-    @GetMapping("/movieinfos")
+    @GetMapping(value = "/movieinfos",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
     public Flux<MovieInfo> getAllMovieInfo(@RequestParam(value = "year",required = false) Integer year,
-                                           @RequestParam(value = "name",required = false) String name){
+                                           @RequestParam(value = "name",required = false) String name,
+                                           @RequestParam(value = "after",required = false) String after,
+                                           @RequestParam(value = "limit",required = false) Integer limit,
+                                           @RequestParam(value = "fields",required = false) List<String> fields){
         log.info("year: {}",year);
         log.info("name: {}",name);
         if(year!=null)
-            return movieInfoService.getAllMovieInfoByYear(year).log();
+            return movieInfoService.getAllMovieInfoByYear(year, fields);
         if(name!=null)
-            return movieInfoService.getAllMovieInfoByName(name).log();
-        return movieInfoService.getAllMovieInfo().log();
+            return movieInfoService.getAllMovieInfoByName(name, fields);
+        if(after!=null || limit!=null)
+            return movieInfoService.getMovieInfoPage(after, limit, fields);
+        return movieInfoService.getAllMovieInfo(fields);
     }
 
     @GetMapping("/movieinfos/{id}")
-    public Mono<ResponseEntity<MovieInfo>> getAllMovieInfoById(@PathVariable String id){
-        return movieInfoService.getAllMovieInfoById(id)
+    public Mono<ResponseEntity<MovieInfo>> getAllMovieInfoById(@PathVariable String id,
+                                                               @RequestParam(value = "fields",required = false) List<String> fields){
+        return movieInfoService.getAllMovieInfoById(id, fields)
                 .map(ResponseEntity.ok()::body)
                 .switchIfEmpty(Mono.just(ResponseEntity.notFound().build()));
     }
@@ -44,7 +54,12 @@ public class MoviesInfoController {
     @PostMapping("/movieinfos")
     @ResponseStatus(HttpStatus.CREATED)
     public Mono<MovieInfo> addMovieInfo(@RequestBody @Valid  MovieInfo movieInfo){
-        return movieInfoService.addMovieInfo(movieInfo).log();
+        return movieInfoService.addMovieInfo(movieInfo);
+    }
+
+    @PostMapping(value = "/movieinfos/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BulkItemResult> addMovieInfos(@RequestBody Flux<MovieInfo> movieInfos){
+        return movieInfoService.addMovieInfos(movieInfos);
     }
 
     @PutMapping("/movieinfos/{id}")
@@ -0,0 +1,38 @@
+package com.reactivespring.domain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one movie info of a POST /v1/movieinfos/bulk stream: index is its position in the
+ * stream, id the generated movieInfoId of a CREATED one.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkItemResult {
+
+    public static final String CREATED = "CREATED";
+    public static final String INVALID = "INVALID";
+    public static final String FAILED = "FAILED";
+
+    private Long index;
+    private String id;
+    private String status;
+    private String error;
+
+    public static BulkItemResult created(Long index, String id) {
+        return new BulkItemResult(index, id, CREATED, null);
+    }
+
+    public static BulkItemResult invalid(Long index, String error) {
+        return new BulkItemResult(index, null, INVALID, error);
+    }
+
+    public static BulkItemResult failed(Long index, String error) {
+        return new BulkItemResult(index, null, FAILED, error);
+    }
+}
@@ -1,9 +1,13 @@
 package com.reactivespring.domain;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import javax.validation.constraints.NotBlank;
@@ -16,17 +20,29 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@CompoundIndex(name = "year_name", def = "{'year': 1, 'name': 1}")
 public class MovieInfo {
 
     @Id
     private String movieInfoId;
 
     @NotBlank(message = "movieInfos.name must be present")
+    @Indexed
     private String name;
 
     @NotNull
     @Positive(message = "movieInfod.year must be positive")
+    @Indexed
     private Integer year;
     private List<@NotBlank(message = "movieInfos.cast must be present") String> cast;
     private LocalDate releaseDate;
+
+    // bumped on every write, an update carrying a stale version is rejected with 409
+    @Version
+    private Long version;
+
+    public MovieInfo(String movieInfoId, String name, Integer year, List<String> cast, LocalDate releaseDate) {
+        this(movieInfoId, name, year, cast, releaseDate, null);
+    }
 }
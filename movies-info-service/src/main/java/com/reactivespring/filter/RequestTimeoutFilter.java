@@ -0,0 +1,61 @@
+package com.reactivespring.filter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Times out a movie info request with the X-Request-Timeout budget, in millis, that movies-service
+ * sends along: the Mongo query is cancelled and 504 answered. Event streams, /stream and the
+ * text/event-stream variant of /v1/movieinfos, last as long as the client listens and are left alone.
+ */
+@Component
+@Slf4j
+public class RequestTimeoutFilter implements WebFilter {
+
+    public static final String HEADER = "X-Request-Timeout";
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        var timeout = timeout(exchange.getRequest().getHeaders().getFirst(HEADER));
+        if(timeout == null || isEventStream(exchange.getRequest())) {
+            return chain.filter(exchange);
+        }
+        return chain.filter(exchange)
+                .timeout(timeout)
+                .onErrorResume(TimeoutException.class, ex -> {
+                    var response = exchange.getResponse();
+                    if(response.isCommitted()) {
+                        return Mono.error(ex);
+                    }
+                    log.warn("Deadline of {} ms exceeded for {}", timeout.toMillis(), exchange.getRequest().getPath());
+                    response.setStatusCode(HttpStatus.GATEWAY_TIMEOUT);
+                    return response.setComplete();
+                });
+    }
+
+    private static boolean isEventStream(ServerHttpRequest request) {
+        return "/stream".equals(request.getPath().pathWithinApplication().value())
+                || request.getHeaders().getAccept().stream().anyMatch(MediaType.TEXT_EVENT_STREAM::includes);
+    }
+
+    private static Duration timeout(String header) {
+        if(header == null) {
+            return null;
+        }
+        try {
+            return Duration.ofMillis(Math.max(0, Long.parseLong(header.trim())));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.MovieInfo;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface MovieInfoRepositoryCustom {
+
+    /**
+     * Keyset scan in movieInfoId order, starting after the passed in id (from the start when null)
+     * and returning at most limit documents (all when null). The Mongo cursor fetches batchSize
+     * documents per round trip. Only the passed in fields are loaded, all of them when null.
+     */
+    Flux<MovieInfo> findAllAfter(String after, Integer limit, int batchSize, Collection<String> fields);
+
+    /**
+     * Finds the movie infos whose property equals value, loading only the passed in fields.
+     */
+    Flux<MovieInfo> findProjectedBy(String property, Object value, Collection<String> fields);
+
+    /**
+     * Writes one chunk of POST /v1/movieinfos/bulk, starting every version at 0 as save would. Sets
+     * the generated movieInfoIds and maps the position of every rejected movie info to the Mongo error.
+     */
+    Mono<Map<Integer, String>> insertUnordered(List<MovieInfo> movieInfos);
+
+    /**
+     * Atomically $sets the non null fields of changes on the movie info and bumps its version, in a
+     * single findAndModify. When expectedVersion is not null the update only applies to that
+     * version. Emits the updated movie info, empty when no movie info matched.
+     */
+    Mono<MovieInfo> updateFields(String id, MovieInfo changes, Long expectedVersion);
+}
@@ -0,0 +1,116 @@
+package com.reactivespring.repository;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.InsertManyOptions;
+import com.reactivespring.domain.MovieInfo;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class MovieInfoRepositoryCustomImpl implements MovieInfoRepositoryCustom {
+
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    public MovieInfoRepositoryCustomImpl(ReactiveMongoTemplate reactiveMongoTemplate) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+    }
+
+    @Override
+    public Flux<MovieInfo> findAllAfter(String after, Integer limit, int batchSize, Collection<String> fields) {
+        var query = new Query().with(Sort.by(Sort.Direction.ASC, "movieInfoId"));
+        if(after != null) {
+            query.addCriteria(Criteria.where("movieInfoId").gt(after));
+        }
+        if(limit != null) {
+            query.limit(limit);
+        }
+        query.cursorBatchSize(batchSize);
+        return reactiveMongoTemplate.find(project(query, fields), MovieInfo.class);
+    }
+
+    @Override
+    public Flux<MovieInfo> findProjectedBy(String property, Object value, Collection<String> fields) {
+        var query = new Query(Criteria.where(property).is(value));
+        return reactiveMongoTemplate.find(project(query, fields), MovieInfo.class);
+    }
+
+    @Override
+    public Mono<Map<Integer, String>> insertUnordered(List<MovieInfo> movieInfos) {
+        if(movieInfos.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        // written outside of the repository, so start the version the way save would
+        movieInfos.stream()
+                .filter(movieInfo -> movieInfo.getVersion() == null)
+                .forEach(movieInfo -> movieInfo.setVersion(0L));
+        var documents = movieInfos.stream()
+                .map(this::toDocument)
+                .collect(Collectors.toList());
+        return reactiveMongoTemplate.getCollection(reactiveMongoTemplate.getCollectionName(MovieInfo.class))
+                // unordered, a duplicate movie info does not stop the rest of the chunk
+                .flatMap(collection -> Mono.from(collection.insertMany(documents, new InsertManyOptions().ordered(false))))
+                .map(result -> Map.<Integer, String>of())
+                .onErrorResume(MongoBulkWriteException.class, ex -> Mono.just(ex.getWriteErrors().stream()
+                        .collect(Collectors.toMap(BulkWriteError::getIndex, BulkWriteError::getMessage))))
+                .doOnNext(failed -> {
+                    // insertMany filled in the missing _ids of the documents, rejected ones included
+                    for (int i = 0; i < movieInfos.size(); i++) {
+                        movieInfos.get(i).setMovieInfoId(toId(documents.get(i).get("_id")));
+                    }
+                });
+    }
+
+    @Override
+    public Mono<MovieInfo> updateFields(String id, MovieInfo changes, Long expectedVersion) {
+        var criteria = Criteria.where("movieInfoId").is(id);
+        if(expectedVersion != null) {
+            criteria.and("version").is(expectedVersion);
+        }
+        var update = new Update().inc("version", 1L);
+        setIfPresent(update, "name", changes.getName());
+        setIfPresent(update, "year", changes.getYear());
+        setIfPresent(update, "cast", changes.getCast());
+        setIfPresent(update, "releaseDate", changes.getReleaseDate());
+        return reactiveMongoTemplate.findAndModify(new Query(criteria), update,
+                FindAndModifyOptions.options().returnNew(true), MovieInfo.class);
+    }
+
+    private static void setIfPresent(Update update, String field, Object value) {
+        if(value != null) {
+            update.set(field, value);
+        }
+    }
+
+    private Document toDocument(MovieInfo movieInfo) {
+        var document = new Document();
+        reactiveMongoTemplate.getConverter().write(movieInfo, document);
+        return document;
+    }
+
+    private static String toId(Object id) {
+        if(id instanceof ObjectId) {
+            return ((ObjectId) id).toHexString();
+        }
+        return id == null ? null : id.toString();
+    }
+
+    private static Query project(Query query, Collection<String> fields) {
+        if(fields != null) {
+            fields.forEach(query.fields()::include);
+        }
+        return query;
+    }
+}
@@ -1,52 +1,204 @@
 package com.reactivespring.service;
 
+import com.reactivespring.domain.BulkItemResult;
 import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.exception.MovieInfoConflictException;
 import com.reactivespring.repository.MovieInfoRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.function.Tuple2;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class MovieInfoService {
 
+    private static final Object FLUSH = new Object();
+
+    private static final Set<String> PROJECTABLE_FIELDS = Set.of("movieInfoId", "name", "year", "cast", "releaseDate");
+
     private MovieInfoRepository movieInfoRepository;
+    private Validator validator;
+
+    @Value("${movieInfo.page.defaultSize:100}")
+    private Integer defaultPageSize;
+
+    @Value("${movieInfo.page.maxSize:1000}")
+    private Integer maxPageSize;
 
-    public MovieInfoService(MovieInfoRepository movieInfoRepository) {
+    @Value("${movieInfo.stream.batchSize:500}")
+    private Integer streamBatchSize;
+
+    @Value("${movieInfo.bulk.chunkSize:500}")
+    private Integer bulkChunkSize;
+
+    @Value("${movieInfo.bulk.maxInFlight:4}")
+    private Integer bulkMaxInFlight;
+
+    @Value("${movieInfo.bulk.flushInterval:200ms}")
+    private Duration bulkFlushInterval;
+
+    public MovieInfoService(MovieInfoRepository movieInfoRepository, Validator validator) {
         this.movieInfoRepository = movieInfoRepository;
+        this.validator = validator;
     }
 
     public Mono<MovieInfo> addMovieInfo(MovieInfo movieInfo) {
         return movieInfoRepository.save(movieInfo);
     }
 
-    public Flux<MovieInfo> getAllMovieInfo() {
-        return movieInfoRepository.findAll();
+    /**
+     * Validates and inserts a stream of movie infos in chunks of bulkChunkSize, with at most
+     * bulkMaxInFlight chunks being written at a time. A chunk still filling up is written every
+     * bulkFlushInterval, so a slow upload gets its results as it goes. Emits one result per movie
+     * info, in the order the movie infos were received.
+     */
+    public Flux<BulkItemResult> addMovieInfos(Flux<MovieInfo> movieInfos) {
+        return chunks(movieInfos.index())
+                .flatMapSequential(this::insertChunk, bulkMaxInFlight)
+                .flatMapIterable(Function.identity());
     }
 
-    public Mono<MovieInfo> getAllMovieInfoById( String id) {
-        return movieInfoRepository.findById(id);
+    /**
+     * Same as bufferTimeout(bulkChunkSize, bulkFlushInterval), but a flush finding all bulkMaxInFlight
+     * chunks still being written is skipped rather than failing the upload, which keeps the upload
+     * backpressured by the writes.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Flux<List<T>> chunks(Flux<T> items) {
+        return Flux.defer(() -> {
+            var uploaded = Sinks.empty();
+            var flushes = Flux.interval(bulkFlushInterval)
+                    .onBackpressureDrop()
+                    .takeUntilOther(uploaded.asMono())
+                    .map(tick -> FLUSH);
+            var size = new int[1];
+            return Flux.merge(items.doFinally(signal -> uploaded.tryEmitEmpty()), flushes)
+                    .bufferUntil(item -> {
+                        if(item == FLUSH || ++size[0] == bulkChunkSize) {
+                            size[0] = 0;
+                            return true;
+                        }
+                        return false;
+                    })
+                    .map(chunk -> chunk.stream()
+                            .filter(item -> item != FLUSH)
+                            .map(item -> (T) item)
+                            .collect(Collectors.toList()))
+                    .filter(chunk -> !chunk.isEmpty());
+        });
     }
 
+    private Mono<List<BulkItemResult>> insertChunk(List<Tuple2<Long, MovieInfo>> chunk) {
+        var results = new BulkItemResult[chunk.size()];
+        var validPositions = new ArrayList<Integer>();
+        var validMovieInfos = new ArrayList<MovieInfo>();
+        for (int i = 0; i < chunk.size(); i++) {
+            var violations = validator.validate(chunk.get(i).getT2());
+            if(violations.isEmpty()) {
+                validPositions.add(i);
+                validMovieInfos.add(chunk.get(i).getT2());
+            } else {
+                results[i] = BulkItemResult.invalid(chunk.get(i).getT1(), violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining(",")));
+            }
+        }
+        return movieInfoRepository.insertUnordered(validMovieInfos)
+                .map(failed -> {
+                    for (int i = 0; i < validPositions.size(); i++) {
+                        var position = validPositions.get(i);
+                        var index = chunk.get(position).getT1();
+                        results[position] = failed.containsKey(i)
+                                ? BulkItemResult.failed(index, failed.get(i))
+                                : BulkItemResult.created(index, validMovieInfos.get(i).getMovieInfoId());
+                    }
+                    return List.of(results);
+                })
+                .onErrorResume(ex -> {
+                    validPositions.forEach(position ->
+                            results[position] = BulkItemResult.failed(chunk.get(position).getT1(), ex.getMessage()));
+                    return Mono.just(List.of(results));
+                });
+    }
+
+    public Flux<MovieInfo> getAllMovieInfo(List<String> fields) {
+        return movieInfoRepository.findAllAfter(null, null, streamBatchSize, projection(fields));
+    }
+
+    /**
+     * Returns the page of movie infos following the after cursor, a page holds limit movie infos
+     * capped at maxPageSize. The cursor for the next page is the movieInfoId of the last element.
+     */
+    public Flux<MovieInfo> getMovieInfoPage(String after, Integer limit, List<String> fields) {
+        var pageSize = Math.max(1, Math.min(limit == null ? defaultPageSize : limit, maxPageSize));
+        return movieInfoRepository.findAllAfter(after, pageSize, pageSize, projection(fields));
+    }
+
+    public Mono<MovieInfo> getAllMovieInfoById(String id, List<String> fields) {
+        var projection = projection(fields);
+        if(projection == null)
+            return movieInfoRepository.findById(id);
+        return movieInfoRepository.findProjectedBy("movieInfoId", id, projection).next();
+    }
+
+    /**
+     * Updates the non null fields of movieInfo in one round trip. When movieInfo carries a version the
+     * update only applies if the stored movie info is still at that version, otherwise it fails with
+     * a MovieInfoConflictException. Empty when there is no movie info with the id.
+     */
     public Mono<MovieInfo> updateMovieInfoById(MovieInfo movieInfo, String id) {
-        return movieInfoRepository.findById(id)
-                .flatMap(movieInfo1 -> {
-                    movieInfo1.setYear(movieInfo.getYear());
-                    movieInfo1.setCast(movieInfo.getCast());
-                    movieInfo1.setName(movieInfo.getName());
-                    movieInfo1.setReleaseDate(movieInfo.getReleaseDate());
-                    return movieInfoRepository.save(movieInfo1);
-                } );
+        var expectedVersion = movieInfo.getVersion();
+        var updated = movieInfoRepository.updateFields(id, movieInfo, expectedVersion);
+        if(expectedVersion == null) {
+            return updated;
+        }
+        // nothing matched, either the movie info is gone or someone else updated it first
+        return updated.switchIfEmpty(Mono.defer(() -> movieInfoRepository.existsById(id)
+                .flatMap(exists -> exists
+                        ? Mono.error(new MovieInfoConflictException("MovieInfo " + id + " was modified, expected version " + expectedVersion))
+                        : Mono.empty())));
     }
 
     public Mono<Void> deleteMovieInfoById(String id) {
         return movieInfoRepository.deleteById(id);
     }
 
-    public Flux<MovieInfo> getAllMovieInfoByYear(Integer year) {
-        return movieInfoRepository.findByYear(year);
+    public Flux<MovieInfo> getAllMovieInfoByYear(Integer year, List<String> fields) {
+        var projection = projection(fields);
+        if(projection == null)
+            return movieInfoRepository.findByYear(year);
+        return movieInfoRepository.findProjectedBy("year", year, projection);
+    }
+
+    public Flux<MovieInfo> getAllMovieInfoByName(String name, List<String> fields) {
+        var projection = projection(fields);
+        if(projection == null)
+            return movieInfoRepository.findByName(name);
+        return movieInfoRepository.findProjectedBy("name", name, projection);
     }
 
-    public Flux<MovieInfo> getAllMovieInfoByName(String name) {
-        return movieInfoRepository.findByName(name);
+    /**
+     * Keeps the known fields of the requested ones, null means the whole document is loaded.
+     */
+    private static Set<String> projection(List<String> fields) {
+        if(fields == null)
+            return null;
+        var projection = fields.stream()
+                .map(String::trim)
+                .filter(PROJECTABLE_FIELDS::contains)
+                .collect(Collectors.toSet());
+        return projection.isEmpty() ? null : projection;
     }
 }
@@ -0,0 +1,59 @@
+package com.reactivespring.config;
+
+import com.reactivespring.domain.MovieInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.test.StepVerifier;
+
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataMongoTest
+@ActiveProfiles("test")
+@Import(MongoIndexInitializer.class)
+class MongoIndexInitializerTest {
+
+    @Autowired
+    MongoIndexInitializer mongoIndexInitializer;
+
+    @Autowired
+    ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Test
+    void ensureIndexes() {
+        mongoIndexInitializer.ensureIndexes().block();
+
+        StepVerifier.create(reactiveMongoTemplate.indexOps(MovieInfo.class).getIndexInfo()
+                        .map(IndexInfo::getName)
+                        .collect(Collectors.toSet()))
+                .assertNext(indexNames -> {
+                    assertTrue(indexNames.contains("year"));
+                    assertTrue(indexNames.contains("name"));
+                    assertTrue(indexNames.contains("year_name"));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void run_failsOnConflictingIndex() {
+        var indexOps = reactiveMongoTemplate.indexOps(MovieInfo.class);
+        indexOps.dropIndex("year").block();
+        indexOps.ensureIndex(new Index("year", Sort.Direction.ASC).named("year").sparse()).block();
+
+        try {
+            assertThrows(DataAccessException.class, () -> mongoIndexInitializer.run(null));
+        } finally {
+            indexOps.dropIndex("year").block();
+        }
+    }
+}
@@ -1,15 +1,19 @@
 package com.reactivespring.controller;
 
+import com.reactivespring.domain.BulkItemResult;
 import com.reactivespring.domain.MovieInfo;
 import com.reactivespring.repository.MovieInfoRepository;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
 import reactor.test.StepVerifier;
 
 import java.net.URI;
@@ -20,6 +24,7 @@ import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @ActiveProfiles("test")
+@AutoConfigureMetrics
 class MoviesInfoControllerIntgTest {
 
     @Autowired
@@ -119,6 +124,88 @@ class MoviesInfoControllerIntgTest {
                 });
     }
 
+    @Test
+    void updateMovieInfo_partial() {
+
+        var movieId = "abc";
+        var movieInfo = new MovieInfo(null, null,
+                2013, null, null);
+        webTestClient
+                .put()
+                .uri(MOVIES_INFO_URL +"/{id}", movieId)
+                .bodyValue(movieInfo)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.name").isEqualTo("Dark Knight Rises")
+                .jsonPath("$.year").isEqualTo(2013)
+                .jsonPath("$.cast[1]").isEqualTo("Tom Hardy")
+                .jsonPath("$.version").isEqualTo(1);
+    }
+
+    @Test
+    void updateMovieInfo_versionConflict() {
+
+        var movieId = "abc";
+        var version = movieInfoRepository.findById(movieId).block().getVersion();
+        var firstEdit = new MovieInfo(null, "Batman goes home",
+                null, null, null, version);
+        var secondEdit = new MovieInfo(null, "Batman stays home",
+                null, null, null, version);
+
+        webTestClient
+                .put()
+                .uri(MOVIES_INFO_URL +"/{id}", movieId)
+                .bodyValue(firstEdit)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody(MovieInfo.class)
+                .consumeWith(movieInfoEntityExchangeResult -> {
+                    var updatedMovieInfo = movieInfoEntityExchangeResult.getResponseBody();
+                    assert updatedMovieInfo != null;
+                    assertEquals(version + 1, updatedMovieInfo.getVersion());
+                });
+
+        webTestClient
+                .put()
+                .uri(MOVIES_INFO_URL +"/{id}", movieId)
+                .bodyValue(secondEdit)
+                .exchange()
+                .expectStatus()
+                .isEqualTo(409);
+
+        StepVerifier.create(movieInfoRepository.findById(movieId))
+                .assertNext(movieInfo -> assertEquals("Batman goes home", movieInfo.getName()))
+                .verifyComplete();
+    }
+
+    @Test
+    void prometheusMetrics() {
+        webTestClient
+                .get()
+                .uri(MOVIES_INFO_URL + "/{id}", "abc")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful();
+
+        var metrics = webTestClient
+                .get()
+                .uri("/actuator/prometheus")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertNotNull(metrics);
+        assertTrue(metrics.contains("http_server_requests_seconds_bucket{application=\"movies-info-service\""));
+        assertTrue(metrics.contains("uri=\"/v1/movieinfos/{id}\""));
+        assertTrue(metrics.contains("mongodb_driver_commands_seconds_bucket"));
+    }
+
     @Test
     void deleteMovieInfoById() {
         var movieId = "abc";
@@ -201,4 +288,113 @@ class MoviesInfoControllerIntgTest {
                 .expectBodyList(MovieInfo.class)
                 .hasSize(0);
     }
-}
\ No newline at end of file
+
+    @Test
+    void getAllMovieInfo_paged() {
+        var firstPage = webTestClient
+                .get()
+                .uri(MOVIES_INFO_URL + "?limit={limit}", 2)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(MovieInfo.class)
+                .hasSize(2)
+                .returnResult()
+                .getResponseBody();
+
+        assert firstPage != null;
+        var after = firstPage.get(1).getMovieInfoId();
+        webTestClient
+                .get()
+                .uri(MOVIES_INFO_URL + "?limit={limit}&after={after}", 2, after)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(MovieInfo.class)
+                .hasSize(1);
+    }
+
+    @Test
+    void getAllMovieInfo_ndjson() {
+        var movieInfoFlux = webTestClient
+                .get()
+                .uri(MOVIES_INFO_URL)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectHeader()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .returnResult(MovieInfo.class)
+                .getResponseBody();
+
+        StepVerifier.create(movieInfoFlux)
+                .expectNextCount(3)
+                .verifyComplete();
+    }
+
+    @Test
+    void getMovieInfoByYear_fields() {
+        webTestClient
+                .get()
+                .uri(MOVIES_INFO_URL + "?year={year}&fields={fields}", 2005, "name,year")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$[0].name").isEqualTo("Batman Begins")
+                .jsonPath("$[0].year").isEqualTo(2005)
+                .jsonPath("$[0].cast").doesNotExist()
+                .jsonPath("$[0].releaseDate").doesNotExist();
+    }
+
+    @Test
+    void addMovieInfos_bulk() {
+        var movieInfos = Flux.just(new MovieInfo(null, "Batman Begins Returns",
+                        2005, List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15")),
+                new MovieInfo(null, "",
+                        -2005, List.of("Christian Bale"), LocalDate.parse("2005-06-15")),
+                new MovieInfo("abc", "Dark Knight Rises Again",
+                        2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20")),
+                new MovieInfo(null, "The Dark Knight Returns",
+                        2008, List.of("Christian Bale"), LocalDate.parse("2008-07-18")));
+
+        var results = webTestClient
+                .post()
+                .uri(MOVIES_INFO_URL + "/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .body(movieInfos, MovieInfo.class)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .returnResult(BulkItemResult.class)
+                .getResponseBody();
+
+        StepVerifier.create(results)
+                .assertNext(result -> {
+                    assertEquals(0L, result.getIndex());
+                    assertEquals(BulkItemResult.CREATED, result.getStatus());
+                    assertNotNull(result.getId());
+                })
+                .assertNext(result -> {
+                    assertEquals(1L, result.getIndex());
+                    assertEquals(BulkItemResult.INVALID, result.getStatus());
+                    assertEquals("movieInfod.year must be positive,movieInfos.name must be present", result.getError());
+                })
+                .assertNext(result -> {
+                    // "abc" already exists, the duplicate key only fails this record
+                    assertEquals(2L, result.getIndex());
+                    assertEquals(BulkItemResult.FAILED, result.getStatus());
+                })
+                .assertNext(result -> {
+                    assertEquals(3L, result.getIndex());
+                    assertEquals(BulkItemResult.CREATED, result.getStatus());
+                })
+                .verifyComplete();
+
+        StepVerifier.create(movieInfoRepository.findAll())
+                .expectNextCount(5)
+                .verifyComplete();
+    }
+}
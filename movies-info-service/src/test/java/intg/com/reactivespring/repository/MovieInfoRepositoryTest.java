@@ -90,6 +90,24 @@ class MovieInfoRepositoryTest {
                 .verifyComplete();
     }
 
+    @Test
+    void updateFields() {
+
+        var changes = new MovieInfo(null, null, 2021, null, null);
+        var movieMono = movieInfoRepository.updateFields("abc", changes, 0L);
+
+        StepVerifier.create(movieMono)
+                .assertNext(movieInfoRes -> {
+                    assertEquals(2021, movieInfoRes.getYear());
+                    assertEquals("Dark Knight Rises", movieInfoRes.getName());
+                    assertEquals(1L, movieInfoRes.getVersion());
+                })
+                .verifyComplete();
+
+        StepVerifier.create(movieInfoRepository.updateFields("abc", changes, 0L))
+                .verifyComplete();
+    }
+
     @Test
     void deleteMovieInfo() {
 
@@ -1,6 +1,8 @@
 package com.reactivespring.controller;
 
+import com.reactivespring.domain.BulkItemResult;
 import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.exception.MovieInfoConflictException;
 import com.reactivespring.repository.MovieInfoRepository;
 import com.reactivespring.service.MovieInfoService;
 import org.junit.jupiter.api.Test;
@@ -8,6 +10,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -16,7 +19,10 @@ import javax.validation.constraints.Null;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.when;
 
 import java.time.LocalDate;
@@ -43,7 +49,7 @@ public class MoviesInfoControllerUnitTest {
                 new MovieInfo("abc", "Dark Knight Rises",
                         2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20")));
 
-            when(movieInfoServiceMock.getAllMovieInfo()).thenReturn(Flux.fromIterable(movieinfos));
+            when(movieInfoServiceMock.getAllMovieInfo(isNull())).thenReturn(Flux.fromIterable(movieinfos));
 
             webTestClient
                     .get()
@@ -55,13 +61,30 @@ public class MoviesInfoControllerUnitTest {
                     .hasSize(3);
     }
 
+    @Test
+    void getAllMovieInfos_paged(){
+        var movieinfos = List.of(new MovieInfo("abc", "Dark Knight Rises",
+                        2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20")));
+
+        when(movieInfoServiceMock.getMovieInfoPage(isNull(), isA(Integer.class), isNull())).thenReturn(Flux.fromIterable(movieinfos));
+
+        webTestClient
+                .get()
+                .uri(MOVIES_INFO_URL + "?limit={limit}", 1)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(MovieInfo.class)
+                .hasSize(1);
+    }
+
     @Test
     void getAllMovieInfoById(){
         var movieinfos = new MovieInfo("abc", "Dark Knight Rises",
                         2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-20"));
 
         var movieId = "abc";
-        when(movieInfoServiceMock.getAllMovieInfoById(movieId)).thenReturn(Mono.just(movieinfos));
+        when(movieInfoServiceMock.getAllMovieInfoById(eq(movieId), isNull())).thenReturn(Mono.just(movieinfos));
 
 
         webTestClient
@@ -74,6 +97,24 @@ public class MoviesInfoControllerUnitTest {
                 .jsonPath("$.name").isEqualTo("Dark Knight Rises");
     }
 
+    @Test
+    void getAllMovieInfoById_fields(){
+        var movieinfo = new MovieInfo("abc", "Dark Knight Rises", 2012, null, null);
+
+        var movieId = "abc";
+        when(movieInfoServiceMock.getAllMovieInfoById(movieId, List.of("name", "year"))).thenReturn(Mono.just(movieinfo));
+
+        webTestClient
+                .get()
+                .uri(MOVIES_INFO_URL + "{id}?fields={fields}", movieId, "name,year")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.name").isEqualTo("Dark Knight Rises")
+                .jsonPath("$.cast").doesNotExist();
+    }
+
     @Test
     void addMoviesInfo(){
         var movieInfo = new MovieInfo(null, "Dark Knight Rises",
@@ -127,6 +168,27 @@ public class MoviesInfoControllerUnitTest {
                 });
     }
 
+    @Test
+    void updateMovieInfo_conflict() {
+
+        var movieId = "abc";
+        var movieInfo = new MovieInfo(null, "Batman goes home",
+                2005, List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15"), 3L);
+
+        when(movieInfoServiceMock.updateMovieInfoById(isA(MovieInfo.class),isA(String.class)))
+                .thenReturn(Mono.error(new MovieInfoConflictException("MovieInfo abc was modified, expected version 3")));
+
+        webTestClient
+                .put()
+                .uri(MOVIES_INFO_URL +"{id}", movieId)
+                .bodyValue(movieInfo)
+                .exchange()
+                .expectStatus()
+                .isEqualTo(409)
+                .expectBody(String.class)
+                .isEqualTo("MovieInfo abc was modified, expected version 3");
+    }
+
     @Test
     void deleteMovieInfoById() {
         var movieId = "abc";
@@ -173,4 +235,31 @@ public class MoviesInfoControllerUnitTest {
 //                });
     }
 
+    @Test
+    void addMovieInfos_bulk(){
+        var movieInfos = Flux.just(new MovieInfo(null, "Batman Begins",
+                        2005, List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15")),
+                new MovieInfo(null, "",
+                        2008, List.of("Christian Bale", "HeathLedger"), LocalDate.parse("2008-07-18")));
+
+        when(movieInfoServiceMock.addMovieInfos(any())).thenReturn(Flux.just(
+                BulkItemResult.created(0L, "mockId"),
+                BulkItemResult.invalid(1L, "movieInfos.name must be present")));
+
+        webTestClient
+                .post()
+                .uri(MOVIES_INFO_URL + "bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .body(movieInfos, MovieInfo.class)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(BulkItemResult.class)
+                .value(results -> {
+                    assertEquals(2, results.size());
+                    assertEquals("mockId", results.get(0).getId());
+                    assertEquals(BulkItemResult.INVALID, results.get(1).getStatus());
+                });
+    }
 }
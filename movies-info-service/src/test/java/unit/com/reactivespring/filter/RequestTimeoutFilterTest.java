@@ -0,0 +1,54 @@
+package com.reactivespring.filter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RequestTimeoutFilterTest {
+
+    RequestTimeoutFilter filter = new RequestTimeoutFilter();
+
+    WebFilterChain slowChain = exchange -> Mono.delay(Duration.ofSeconds(1)).then();
+
+    @Test
+    void filter_deadlineExceeded() {
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/v1/movieinfos/abc")
+                .header(RequestTimeoutFilter.HEADER, "50"));
+
+        StepVerifier.create(filter.filter(exchange, slowChain))
+                .expectComplete()
+                .verify(Duration.ofMillis(500));
+        assertEquals(HttpStatus.GATEWAY_TIMEOUT, exchange.getResponse().getStatusCode());
+    }
+
+    @Test
+    void filter_withinDeadline() {
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/v1/movieinfos/abc")
+                .header(RequestTimeoutFilter.HEADER, "2000"));
+
+        StepVerifier.create(filter.filter(exchange, slowChain))
+                .verifyComplete();
+        assertNull(exchange.getResponse().getStatusCode());
+    }
+
+    @Test
+    void filter_eventStreamNotTimedOut() {
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/v1/movieinfos")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .header(RequestTimeoutFilter.HEADER, "50"));
+
+        StepVerifier.create(filter.filter(exchange, slowChain))
+                .verifyComplete();
+        assertNull(exchange.getResponse().getStatusCode());
+    }
+}
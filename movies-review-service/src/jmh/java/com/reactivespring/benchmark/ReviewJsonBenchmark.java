@@ -0,0 +1,55 @@
+package com.reactivespring.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.reactivespring.domain.Review;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson encode/decode of a Review, once per element of every review stream the service answers or
+ * ingests. The comment lengths cover a one-liner and a long-form review.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class ReviewJsonBenchmark {
+
+    @Param({"40", "2000"})
+    int commentLength;
+
+    private ObjectMapper objectMapper;
+    private Review review;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        // configured like the ObjectMapper of Spring Boot
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        var comment = "Great pacing, memorable score and cast. ".repeat(commentLength / 40 + 1).substring(0, commentLength);
+        review = new Review("61234f0c9a1b2c3d4e5f6a7b", 1L, comment, 8.5);
+        json = objectMapper.writeValueAsBytes(review);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return objectMapper.writeValueAsBytes(review);
+    }
+
+    @Benchmark
+    public Review decode() throws IOException {
+        return objectMapper.readValue(json, Review.class);
+    }
+}
@@ -0,0 +1,59 @@
+package com.reactivespring.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.reactivespring.domain.Review;
+import com.reactivespring.exception.ReviewDataException;
+import com.reactivespring.handler.ReviewHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.slf4j.LoggerFactory;
+
+import javax.validation.Validation;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ReviewHandler.validate on a valid review and on one violating both constraints, which is the path
+ * every added, updated and bulk loaded review goes through.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class ReviewValidationBenchmark {
+
+    private ReviewHandler reviewHandler;
+    private Review validReview;
+    private Review invalidReview;
+
+    @Setup
+    public void setUp() {
+        reviewHandler = new ReviewHandler(null, null, null);
+        reviewHandler.setValidator(Validation.buildDefaultValidatorFactory().getValidator());
+        // the violations are logged, measure the validation and not the console
+        ((Logger) LoggerFactory.getLogger(ReviewHandler.class)).setLevel(Level.OFF);
+
+        validReview = new Review(null, 1L, "Awesome Movie", 9.0);
+        invalidReview = new Review(null, null, "Awesome Movie", -9.0);
+    }
+
+    @Benchmark
+    public Review validate_valid() {
+        reviewHandler.validate(validReview);
+        return validReview;
+    }
+
+    @Benchmark
+    public ReviewDataException validate_invalid() {
+        try {
+            reviewHandler.validate(invalidReview);
+            throw new IllegalStateException("review should have been rejected");
+        } catch (ReviewDataException e) {
+            return e;
+        }
+    }
+}
@@ -2,11 +2,16 @@ package com.reactivespring;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import reactor.core.scheduler.Schedulers;
 
 @SpringBootApplication
+@EnableScheduling
 public class MoviesReviewServiceApplication {
 
 	public static void main(String[] args) {
+		// task counts and timings of the Reactor schedulers, published to the global Micrometer registry
+		Schedulers.enableMetrics();
 		SpringApplication.run(MoviesReviewServiceApplication.class, args);
 	}
 
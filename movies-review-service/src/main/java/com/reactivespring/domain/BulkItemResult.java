@@ -0,0 +1,38 @@
+package com.reactivespring.domain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One line of the NDJSON response of /v1/reviews/bulk.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkItemResult {
+
+    public static final String CREATED = "CREATED";
+    public static final String INVALID = "INVALID";
+    public static final String FAILED = "FAILED";
+
+    // position of the record in the ingested stream
+    private Long index;
+    private String id;
+    private String status;
+    private String error;
+
+    public static BulkItemResult created(Long index, String id) {
+        return new BulkItemResult(index, id, CREATED, null);
+    }
+
+    public static BulkItemResult invalid(Long index, String error) {
+        return new BulkItemResult(index, null, INVALID, error);
+    }
+
+    public static BulkItemResult failed(Long index, String error) {
+        return new BulkItemResult(index, null, FAILED, error);
+    }
+}
@@ -0,0 +1,37 @@
+package com.reactivespring.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document
+public class ReviewStats {
+
+    @Id
+    private Long movieInfoId;
+    // number of rated reviews
+    private Long count;
+    private Double sum;
+    private Double min;
+    private Double max;
+    // rated reviews per rating bucket, the key is the rating rounded down
+    private Map<String, Long> histogram;
+    // bumped by every update, the rebuild only replaces the document if it is unchanged
+    @JsonIgnore
+    private Long version;
+
+    public Double getAverage() {
+        if(count == null || count == 0) {
+            return null;
+        }
+        return sum / count;
+    }
+}
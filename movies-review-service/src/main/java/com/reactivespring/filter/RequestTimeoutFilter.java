@@ -0,0 +1,56 @@
+package com.reactivespring.filter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Answers 504 once the budget movies-service passed in X-Request-Timeout (millis left) is spent,
+ * cancelling the reviews or stats query it was waiting on. The /v1/reviews/stream feed stays open
+ * for as long as its watcher listens and is never timed out.
+ */
+@Component
+@Slf4j
+public class RequestTimeoutFilter implements WebFilter {
+
+    public static final String HEADER = "X-Request-Timeout";
+
+    private static final String STREAM_PATH = "/v1/reviews/stream";
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        var timeout = timeout(exchange.getRequest().getHeaders().getFirst(HEADER));
+        if(timeout == null || STREAM_PATH.equals(exchange.getRequest().getPath().pathWithinApplication().value())) {
+            return chain.filter(exchange);
+        }
+        return chain.filter(exchange)
+                .timeout(timeout)
+                .onErrorResume(TimeoutException.class, ex -> {
+                    var response = exchange.getResponse();
+                    if(response.isCommitted()) {
+                        return Mono.error(ex);
+                    }
+                    log.warn("Deadline of {} ms exceeded for {}", timeout.toMillis(), exchange.getRequest().getPath());
+                    response.setStatusCode(HttpStatus.GATEWAY_TIMEOUT);
+                    return response.setComplete();
+                });
+    }
+
+    private static Duration timeout(String header) {
+        if(header == null) {
+            return null;
+        }
+        try {
+            return Duration.ofMillis(Math.max(0, Long.parseLong(header.trim())));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -1,20 +1,38 @@
 package com.reactivespring.handler;
 
+import com.reactivespring.domain.BulkItemResult;
+import com.reactivespring.domain.MovieReviews;
 import com.reactivespring.domain.Review;
 import com.reactivespring.exception.ReviewDataException;
 import com.reactivespring.exception.ReviewNotFoundException;
 import com.reactivespring.repository.ReviewReactiveRepository;
+import com.reactivespring.service.ReviewFeed;
+import com.reactivespring.service.ReviewStatsService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.function.Tuple2;
 
 import javax.validation.ConstraintViolation;
 import javax.validation.Validator;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 
@@ -22,45 +40,286 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ReviewHandler {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    public static final MediaType MERGE_PATCH_JSON = MediaType.valueOf("application/merge-patch+json");
+
+    private static final Set<String> PROJECTABLE_FIELDS = Set.of("reviewId", "movieInfoId", "comment", "rating");
+
+    private static final Object FLUSH = new Object();
+
+    private static final ParameterizedTypeReference<Map<String, Object>> PATCH_TYPE = new ParameterizedTypeReference<>() {};
+
     ReviewReactiveRepository reviewReactiveRepository;
+    ReviewStatsService reviewStatsService;
+    ReviewFeed reviewFeed;
+
+    @Value("${reviews.page.defaultSize:100}")
+    private Integer defaultPageSize;
+
+    @Value("${reviews.page.maxSize:500}")
+    private Integer maxPageSize;
+
+    @Value("${reviews.bulk.chunkSize:500}")
+    private Integer bulkChunkSize;
+
+    @Value("${reviews.bulk.maxInFlight:4}")
+    private Integer bulkMaxInFlight;
+
+    @Value("${reviews.bulk.flushInterval:200ms}")
+    private Duration bulkFlushInterval;
 
-    @Autowired
     private Validator validator;
 
-    public ReviewHandler(ReviewReactiveRepository reviewReactiveRepository) {
+    public ReviewHandler(ReviewReactiveRepository reviewReactiveRepository, ReviewStatsService reviewStatsService, ReviewFeed reviewFeed) {
         this.reviewReactiveRepository = reviewReactiveRepository;
+        this.reviewStatsService = reviewStatsService;
+        this.reviewFeed = reviewFeed;
+    }
+
+    @Autowired
+    public void setValidator(Validator validator) {
+        this.validator = validator;
     }
 
     public void validate(Review review) {
-        var contraintVoilation =  validator.validate(review);
-        log.error("Constraints : {}",contraintVoilation);
-        if(contraintVoilation.size()>0){
-            var errorMessage = contraintVoilation
-                    .stream()
-                    .map(ConstraintViolation::getMessage)
-                    .sorted()
-                    .collect(Collectors.joining(","));
+        var errorMessage = validationErrors(review);
+        if(errorMessage != null){
             throw  new ReviewDataException(errorMessage);
         }
     }
 
+    /**
+     * Returns the sorted, comma separated constraint violations of the review, null when it is valid.
+     */
+    private String validationErrors(Review review) {
+        var contraintVoilation =  validator.validate(review);
+        if(contraintVoilation.isEmpty()){
+            return null;
+        }
+        log.error("Constraints : {}",contraintVoilation);
+        return contraintVoilation
+                .stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining(","));
+    }
+
     public Mono<ServerResponse> addReview(ServerRequest request) {
 
         return request.bodyToMono(Review.class)
                 .doOnNext(this::validate)
                 .flatMap(reviewReactiveRepository::save)
+                .flatMap(review -> reviewStatsService.reviewAdded(review).thenReturn(review))
+                .doOnNext(reviewFeed::reviewSaved)
                 .flatMap(ServerResponse.status(HttpStatus.CREATED)::bodyValue);
     }
 
+    /**
+     * Ingests an NDJSON stream of reviews, validated and inserted in chunks of bulkChunkSize with at
+     * most bulkMaxInFlight chunks being written at a time. A partial chunk is written once
+     * bulkFlushInterval passes, so reviews trickling in are answered without waiting for the chunk to
+     * fill up. Streams back one result per review, in the order the reviews were received.
+     */
+    public Mono<ServerResponse> addReviews(ServerRequest request) {
+        var results = chunks(request.bodyToFlux(Review.class).index())
+                .flatMapSequential(this::insertChunk, bulkMaxInFlight)
+                .flatMapIterable(Function.identity());
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(results, BulkItemResult.class);
+    }
+
+    /**
+     * Chunks of up to bulkChunkSize reviews, cut short on every bulkFlushInterval tick. Unlike
+     * bufferTimeout, a tick arriving while all chunks in flight are still being written is dropped
+     * instead of erroring the stream, so the upload stays backpressured by the inserts.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Flux<List<T>> chunks(Flux<T> reviews) {
+        return Flux.defer(() -> {
+            var received = Sinks.empty();
+            var ticks = Flux.interval(bulkFlushInterval)
+                    .onBackpressureDrop()
+                    .takeUntilOther(received.asMono())
+                    .map(tick -> FLUSH);
+            var size = new int[1];
+            return Flux.merge(reviews.doFinally(signal -> received.tryEmitEmpty()), ticks)
+                    .bufferUntil(item -> {
+                        if(item == FLUSH || ++size[0] == bulkChunkSize) {
+                            size[0] = 0;
+                            return true;
+                        }
+                        return false;
+                    })
+                    .map(chunk -> chunk.stream()
+                            .filter(item -> item != FLUSH)
+                            .map(item -> (T) item)
+                            .collect(Collectors.toList()))
+                    .filter(chunk -> !chunk.isEmpty());
+        });
+    }
+
+    private Mono<List<BulkItemResult>> insertChunk(List<Tuple2<Long, Review>> chunk) {
+        var results = new BulkItemResult[chunk.size()];
+        var validPositions = new ArrayList<Integer>();
+        var validReviews = new ArrayList<Review>();
+        for (int i = 0; i < chunk.size(); i++) {
+            var errorMessage = validationErrors(chunk.get(i).getT2());
+            if(errorMessage == null) {
+                validPositions.add(i);
+                validReviews.add(chunk.get(i).getT2());
+            } else {
+                results[i] = BulkItemResult.invalid(chunk.get(i).getT1(), errorMessage);
+            }
+        }
+        return reviewReactiveRepository.insertUnordered(validReviews)
+                .<List<Review>>map(failed -> {
+                    var inserted = new ArrayList<Review>();
+                    for (int i = 0; i < validPositions.size(); i++) {
+                        var position = validPositions.get(i);
+                        var index = chunk.get(position).getT1();
+                        if(failed.containsKey(i)) {
+                            results[position] = BulkItemResult.failed(index, failed.get(i));
+                        } else {
+                            inserted.add(validReviews.get(i));
+                            results[position] = BulkItemResult.created(index, validReviews.get(i).getReviewId());
+                        }
+                    }
+                    return inserted;
+                })
+                .onErrorResume(ex -> {
+                    validPositions.forEach(position ->
+                            results[position] = BulkItemResult.failed(chunk.get(position).getT1(), ex.getMessage()));
+                    return Mono.just(List.of());
+                })
+                .flatMap(this::reviewsInserted)
+                .then(Mono.fromSupplier(() -> List.of(results)));
+    }
+
+    /**
+     * The reviews are stored once insertMany returned, a failed stats upsert must not report them as
+     * failed or the client retries and duplicates them, the scheduled rebuildStats repairs the stats.
+     */
+    private Mono<Void> reviewsInserted(List<Review> inserted) {
+        return reviewStatsService.reviewsAdded(inserted)
+                .onErrorResume(ex -> {
+                    log.error("Stats not updated for {} inserted reviews", inserted.size(), ex);
+                    return Mono.empty();
+                })
+                .then(Mono.fromRunnable(() -> inserted.forEach(reviewFeed::reviewSaved)));
+    }
+
     public Mono<ServerResponse> getReview(ServerRequest request) {
 
+        var fields = projection(request);
+        var movieInfoIds = request.queryParam("movieInfoIds");
+        if(movieInfoIds.isPresent()){
+            return getReviewsByMovieInfoIds(movieInfoIds.get(), fields);
+        }
         var movieInfoId = request.queryParam("movieInfoId");
         if(movieInfoId.isPresent()){
-            var review = reviewReactiveRepository.getReviewByMovieInfoId(Long.valueOf(movieInfoId.get()));
+            var id = Long.valueOf(movieInfoId.get());
+            var review = fields == null
+                    ? reviewReactiveRepository.getReviewByMovieInfoId(id)
+                    : reviewReactiveRepository.findByMovieInfoIds(List.of(id), fields);
             return buildGetReviewResponse(review);
         }
-        var review = reviewReactiveRepository.findAll();
-        return buildGetReviewResponse(review);
+        return getReviewPage(request, fields);
+    }
+
+    /**
+     * Keeps the known fields of the comma separated fields param, null means whole reviews are loaded.
+     */
+    private static Set<String> projection(ServerRequest request) {
+        return request.queryParam("fields")
+                .map(fields -> Arrays.stream(fields.split(","))
+                        .map(String::trim)
+                        .filter(PROJECTABLE_FIELDS::contains)
+                        .collect(Collectors.toSet()))
+                .filter(fields -> !fields.isEmpty())
+                .orElse(null);
+    }
+
+    /**
+     * Returns one page of reviews in reviewId order, never more than maxPageSize. When more reviews
+     * follow, the X-Next-Cursor header holds the value to pass as after for the next page.
+     */
+    private Mono<ServerResponse> getReviewPage(ServerRequest request, Set<String> fields) {
+        var limit = request.queryParam("limit").map(ReviewHandler::toLimit).orElse(defaultPageSize);
+        var pageSize = Math.max(1, Math.min(limit, maxPageSize));
+        var after = request.queryParam("after").orElse(null);
+        // one extra review tells whether there is a next page
+        return reviewReactiveRepository.findAllAfter(after, pageSize + 1, fields)
+                .collectList()
+                .flatMap(reviews -> {
+                    var response = ServerResponse.ok();
+                    if(reviews.size() <= pageSize) {
+                        return response.bodyValue(reviews);
+                    }
+                    var page = reviews.subList(0, pageSize);
+                    return response
+                            .header(NEXT_CURSOR_HEADER, page.get(pageSize - 1).getReviewId())
+                            .bodyValue(page);
+                });
+    }
+
+    private static Integer toLimit(String limit) {
+        try {
+            return Integer.valueOf(limit);
+        } catch (NumberFormatException e) {
+            throw new ReviewDataException("review.limit : invalid limit " + limit);
+        }
+    }
+
+    /**
+     * Fetches the reviews of all the passed in movies with a single $in query and streams them
+     * back grouped per movieInfoId, the query sorts on movieInfoId so each group is contiguous.
+     */
+    private Mono<ServerResponse> getReviewsByMovieInfoIds(String movieInfoIds, Set<String> fields) {
+        var ids = Arrays.stream(movieInfoIds.split(","))
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .map(ReviewHandler::toMovieInfoId)
+                .distinct()
+                .collect(Collectors.toList());
+        var reviews = fields == null
+                ? reviewReactiveRepository.findByMovieInfoIdInOrderByMovieInfoId(ids)
+                : reviewReactiveRepository.findByMovieInfoIds(ids, fields);
+        var movieReviews = reviews
+                .bufferUntilChanged(Review::getMovieInfoId)
+                .map(reviews -> new MovieReviews(reviews.get(0).getMovieInfoId(), reviews));
+        return ServerResponse.ok().body(movieReviews, MovieReviews.class);
+    }
+
+    /**
+     * Server-sent events of the reviews saved from now on, of one movie when movieInfoId is passed.
+     * All watchers share the single publisher of the ReviewFeed.
+     */
+    public Mono<ServerResponse> streamReviews(ServerRequest request) {
+        var movieInfoId = request.queryParam("movieInfoId")
+                .map(ReviewHandler::toMovieInfoId)
+                .orElse(null);
+        return ServerResponse.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(reviewFeed.watch(movieInfoId), Review.class);
+    }
+
+    public Mono<ServerResponse> getReviewStats(ServerRequest request) {
+        var movieInfoId = request.queryParam("movieInfoId")
+                .map(ReviewHandler::toMovieInfoId)
+                .orElseThrow(() -> new ReviewDataException("review.movieInfoId : Must not be Null"));
+        return reviewStatsService.getStats(movieInfoId)
+                .switchIfEmpty(Mono.error(new ReviewNotFoundException("No rated reviews found for the movieInfoId :" + movieInfoId)))
+                .flatMap(ServerResponse.ok()::bodyValue);
+    }
+
+    private static Long toMovieInfoId(String movieInfoId) {
+        try {
+            return Long.valueOf(movieInfoId);
+        } catch (NumberFormatException e) {
+            throw new ReviewDataException("review.movieInfoIds : invalid movieInfoId " + movieInfoId);
+        }
     }
 
     private static Mono<ServerResponse> buildGetReviewResponse(Flux<Review> review) {
@@ -73,20 +332,123 @@ public class ReviewHandler {
         var existingReview = reviewReactiveRepository.findById(reviewId)
                 .switchIfEmpty(Mono.error(new ReviewNotFoundException("Review not found with the id :"+ reviewId)));
         return existingReview.flatMap(review -> request.bodyToMono(Review.class)
-                .map(reqReview -> {
+                .doOnNext(this::validate)
+                .flatMap(reqReview -> {
+                    var previous = new Review(review.getReviewId(), review.getMovieInfoId(), review.getComment(), review.getRating());
                     review.setComment(reqReview.getComment());
                     review.setRating(reqReview.getRating());
                     review.setMovieInfoId(reqReview.getMovieInfoId());
-                    return review;
+                    return reviewReactiveRepository.save(review)
+                            .flatMap(savedReview -> reviewStatsService.reviewUpdated(previous, savedReview).thenReturn(savedReview))
+                            .doOnNext(reviewFeed::reviewSaved);
                 })
-                .flatMap(reviewReactiveRepository::save)
                 .flatMap(ServerResponse.ok()::bodyValue));
     }
 
+    /**
+     * Applies a JSON merge patch (RFC 7396) to the review with one findAndModify that only touches
+     * the fields present in the patch, a null value removes the field. The patched fields are checked
+     * against the same Review constraints as POST and PUT before anything is written. The previous
+     * review returned by Mongo is used to move the stats from the old to the new rating.
+     */
+    public Mono<ServerResponse> patchReview(ServerRequest request) {
+        var reviewId = request.pathVariable("id");
+        return request.bodyToMono(PATCH_TYPE)
+                .defaultIfEmpty(Map.of())
+                .map(ReviewHandler::toPatch)
+                .doOnNext(this::validatePatch)
+                .flatMap(patch -> {
+                    if(patch.isEmpty()) {
+                        return reviewReactiveRepository.findById(reviewId);
+                    }
+                    return reviewReactiveRepository.findAndModifyById(reviewId, toUpdate(patch))
+                            .flatMap(previous -> {
+                                var patched = applyPatch(previous, patch);
+                                return reviewStatsService.reviewUpdated(previous, patched).thenReturn(patched);
+                            })
+                            .doOnNext(reviewFeed::reviewSaved);
+                })
+                .switchIfEmpty(Mono.error(new ReviewNotFoundException("Review not found with the id :"+ reviewId)))
+                .flatMap(ServerResponse.ok()::bodyValue);
+    }
+
+    /**
+     * Validates each patched value on its own, the Review constraints are all on single fields so the
+     * fields the patch leaves alone can not become invalid.
+     */
+    private void validatePatch(Map<String, Object> patch) {
+        var errorMessage = patch.entrySet()
+                .stream()
+                .flatMap(entry -> validator.validateValue(Review.class, entry.getKey(), entry.getValue()).stream())
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining(","));
+        if(!errorMessage.isEmpty()) {
+            log.error("Patch constraints : {}", errorMessage);
+            throw new ReviewDataException(errorMessage);
+        }
+    }
+
+    /**
+     * Rejects the fields that can not be patched and converts the values to the Review field types,
+     * the constraints are left to validate.
+     */
+    private static Map<String, Object> toPatch(Map<String, Object> body) {
+        var patch = new LinkedHashMap<String, Object>();
+        body.forEach((field, value) -> {
+            switch (field) {
+                case "movieInfoId":
+                    if(value != null && !(value instanceof Number)) {
+                        throw new ReviewDataException("review.movieInfoId : invalid movieInfoId " + value);
+                    }
+                    patch.put(field, value == null ? null : ((Number) value).longValue());
+                    break;
+                case "rating":
+                    if(value != null && !(value instanceof Number)) {
+                        throw new ReviewDataException("review.rating : invalid rating " + value);
+                    }
+                    patch.put(field, value == null ? null : ((Number) value).doubleValue());
+                    break;
+                case "comment":
+                    patch.put(field, value == null ? null : value.toString());
+                    break;
+                default:
+                    throw new ReviewDataException("review." + field + " : can not be patched");
+            }
+        });
+        return patch;
+    }
+
+    private static Update toUpdate(Map<String, Object> patch) {
+        var update = new Update();
+        patch.forEach((field, value) -> {
+            if(value == null) {
+                update.unset(field);
+            } else {
+                update.set(field, value);
+            }
+        });
+        return update;
+    }
+
+    private static Review applyPatch(Review review, Map<String, Object> patch) {
+        var patched = new Review(review.getReviewId(), review.getMovieInfoId(), review.getComment(), review.getRating());
+        if(patch.containsKey("movieInfoId")) {
+            patched.setMovieInfoId((Long) patch.get("movieInfoId"));
+        }
+        if(patch.containsKey("comment")) {
+            patched.setComment((String) patch.get("comment"));
+        }
+        if(patch.containsKey("rating")) {
+            patched.setRating((Double) patch.get("rating"));
+        }
+        return patched;
+    }
+
     public Mono<ServerResponse> deleteReview(ServerRequest request) {
         var reviewId = request.pathVariable("id");
-        return reviewReactiveRepository.findById(reviewId)
-                .flatMap(review -> reviewReactiveRepository.delete(review))
+        return reviewReactiveRepository.findAndRemoveById(reviewId)
+                .flatMap(reviewStatsService::reviewRemoved)
                 .then( ServerResponse.noContent().build());
     }
 
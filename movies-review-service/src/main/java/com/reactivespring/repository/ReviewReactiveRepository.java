@@ -4,8 +4,12 @@ import com.reactivespring.domain.Review;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import reactor.core.publisher.Flux;
 
-public interface ReviewReactiveRepository extends ReactiveMongoRepository<Review, String> {
+import java.util.Collection;
+
+public interface ReviewReactiveRepository extends ReactiveMongoRepository<Review, String>, ReviewReactiveRepositoryCustom {
 
     public Flux<Review> getReviewByMovieInfoId(Long movieInfoId);
 
+    public Flux<Review> findByMovieInfoIdInOrderByMovieInfoId(Collection<Long> movieInfoIds);
+
 }
@@ -0,0 +1,45 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.Review;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface ReviewReactiveRepositoryCustom {
+
+    /**
+     * Keyset scan in reviewId order, starting after the passed in id (from the start when null)
+     * and returning at most limit reviews, fetched from Mongo in a single cursor batch. Only the
+     * passed in fields are loaded, all of them when null.
+     */
+    Flux<Review> findAllAfter(String after, int limit, Collection<String> fields);
+
+    /**
+     * Finds the reviews of the passed in movies sorted on movieInfoId, loading only the passed in
+     * fields plus movieInfoId.
+     */
+    Flux<Review> findByMovieInfoIds(Collection<Long> movieInfoIds, Collection<String> fields);
+
+    /**
+     * Inserts the reviews with a single unordered insertMany, so one failing document does not stop
+     * the others. The generated ids are set on the passed in reviews, the result maps the position
+     * of every failed review to its error message.
+     */
+    Mono<Map<Integer, String>> insertUnordered(List<Review> reviews);
+
+    /**
+     * Applies the update to the review in a single findAndModify and emits the review as it was
+     * before the update, empty when there is no review with the id.
+     */
+    Mono<Review> findAndModifyById(String reviewId, Update update);
+
+    /**
+     * Deletes the review in a single findAndRemove and emits it, empty when there is no review with
+     * the id.
+     */
+    Mono<Review> findAndRemoveById(String reviewId);
+}
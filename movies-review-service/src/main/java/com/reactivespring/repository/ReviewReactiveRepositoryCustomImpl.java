@@ -0,0 +1,103 @@
+package com.reactivespring.repository;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.InsertManyOptions;
+import com.reactivespring.domain.Review;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class ReviewReactiveRepositoryCustomImpl implements ReviewReactiveRepositoryCustom {
+
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    public ReviewReactiveRepositoryCustomImpl(ReactiveMongoTemplate reactiveMongoTemplate) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+    }
+
+    @Override
+    public Flux<Review> findAllAfter(String after, int limit, Collection<String> fields) {
+        var query = new Query().with(Sort.by(Sort.Direction.ASC, "reviewId"));
+        if(after != null) {
+            query.addCriteria(Criteria.where("reviewId").gt(after));
+        }
+        query.limit(limit);
+        query.cursorBatchSize(limit);
+        return reactiveMongoTemplate.find(project(query, fields), Review.class);
+    }
+
+    @Override
+    public Flux<Review> findByMovieInfoIds(Collection<Long> movieInfoIds, Collection<String> fields) {
+        var query = new Query(Criteria.where("movieInfoId").in(movieInfoIds))
+                .with(Sort.by(Sort.Direction.ASC, "movieInfoId"));
+        if(fields != null) {
+            query.fields().include("movieInfoId");
+        }
+        return reactiveMongoTemplate.find(project(query, fields), Review.class);
+    }
+
+    @Override
+    public Mono<Map<Integer, String>> insertUnordered(List<Review> reviews) {
+        if(reviews.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        var documents = reviews.stream()
+                .map(this::toDocument)
+                .collect(Collectors.toList());
+        return reactiveMongoTemplate.getCollection(reactiveMongoTemplate.getCollectionName(Review.class))
+                .flatMap(collection -> Mono.from(collection.insertMany(documents, new InsertManyOptions().ordered(false))))
+                .map(result -> Map.<Integer, String>of())
+                .onErrorResume(MongoBulkWriteException.class, ex -> Mono.just(ex.getWriteErrors().stream()
+                        .collect(Collectors.toMap(BulkWriteError::getIndex, BulkWriteError::getMessage))))
+                .doOnNext(failed -> {
+                    // the driver adds the generated _id to every inserted document
+                    for (int i = 0; i < reviews.size(); i++) {
+                        reviews.get(i).setReviewId(toId(documents.get(i).get("_id")));
+                    }
+                });
+    }
+
+    @Override
+    public Mono<Review> findAndModifyById(String reviewId, Update update) {
+        return reactiveMongoTemplate.findAndModify(new Query(Criteria.where("reviewId").is(reviewId)), update,
+                FindAndModifyOptions.options().returnNew(false), Review.class);
+    }
+
+    @Override
+    public Mono<Review> findAndRemoveById(String reviewId) {
+        return reactiveMongoTemplate.findAndRemove(new Query(Criteria.where("reviewId").is(reviewId)), Review.class);
+    }
+
+    private Document toDocument(Review review) {
+        var document = new Document();
+        reactiveMongoTemplate.getConverter().write(review, document);
+        return document;
+    }
+
+    private static String toId(Object id) {
+        if(id instanceof ObjectId) {
+            return ((ObjectId) id).toHexString();
+        }
+        return id == null ? null : id.toString();
+    }
+
+    private static Query project(Query query, Collection<String> fields) {
+        if(fields != null) {
+            fields.forEach(query.fields()::include);
+        }
+        return query;
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.web.reactive.function.server.ServerResponse;
 
 import javax.xml.validation.Validator;
 
+import static org.springframework.web.reactive.function.server.RequestPredicates.contentType;
 import static org.springframework.web.reactive.function.server.RequestPredicates.path;
 import static org.springframework.web.reactive.function.server.RouterFunctions.route;
 
@@ -20,8 +21,12 @@ public class ReviewRouter {
         RouterFunctions.Builder route = route();
         route.nest(path("/v1/reviews"),builder -> {
                     builder.POST("", request -> reviewHandler.addReview(request));
+                    builder.POST("/bulk", request -> reviewHandler.addReviews(request));
                     builder.GET("",request -> reviewHandler.getReview(request));
+                    builder.GET("/stats",request -> reviewHandler.getReviewStats(request));
+                    builder.GET("/stream",request -> reviewHandler.streamReviews(request));
                     builder.PUT("/{id}",request -> reviewHandler.updateReview(request));
+                    builder.PATCH("/{id}", contentType(ReviewHandler.MERGE_PATCH_JSON), request -> reviewHandler.patchReview(request));
                     builder.DELETE("/{id}",request -> reviewHandler.deleteReview(request));
                 }
         );
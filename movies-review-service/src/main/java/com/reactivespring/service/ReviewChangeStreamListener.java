@@ -0,0 +1,61 @@
+package com.reactivespring.service;
+
+import com.mongodb.client.model.changestream.FullDocument;
+import com.reactivespring.domain.Review;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.util.retry.Retry;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Populates the review feed from the Mongo change stream of the review collection, so reviews saved
+ * by any instance reach the watchers of every instance. Needs a replica set, enabled with
+ * reviews.stream.source=changeStream.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "reviews.stream.source", havingValue = ReviewFeed.CHANGE_STREAM_SOURCE)
+public class ReviewChangeStreamListener {
+
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+    private ReviewFeed reviewFeed;
+    private Disposable subscription;
+
+    public ReviewChangeStreamListener(ReactiveMongoTemplate reactiveMongoTemplate, ReviewFeed reviewFeed) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.reviewFeed = reviewFeed;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void listen() {
+        var options = ChangeStreamOptions.builder()
+                .filter(Aggregation.newAggregation(Aggregation.match(where("operationType").in("insert", "update", "replace"))))
+                .fullDocumentLookup(FullDocument.UPDATE_LOOKUP)
+                .build();
+        subscription = reactiveMongoTemplate.changeStream(reactiveMongoTemplate.getCollectionName(Review.class), options, Review.class)
+                .filter(event -> event.getBody() != null)
+                .map(ChangeStreamEvent::getBody)
+                .doOnError(ex -> log.warn("Review change stream failed, reconnecting : {}", ex.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe(reviewFeed::publish);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if(subscription != null) {
+            subscription.dispose();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.reactivespring.service;
+
+import com.reactivespring.domain.Review;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Single publisher behind the live review feed. Every saved review is emitted once into a shared
+ * multicast sink and fanned out to all watchers, so the cost of a new review does not grow with the
+ * number of watchers. Each watcher gets its own bounded buffer, a slow watcher loses its oldest
+ * pending reviews instead of holding back the sink or the other watchers.
+ */
+@Service
+@Slf4j
+public class ReviewFeed {
+
+    public static final String LOCAL_SOURCE = "local";
+    public static final String CHANGE_STREAM_SOURCE = "changeStream";
+
+    private final Sinks.Many<Review> sink = Sinks.many().multicast().directBestEffort();
+
+    private Integer bufferSize;
+    private String source;
+
+    public ReviewFeed(@Value("${reviews.stream.bufferSize:256}") Integer bufferSize,
+                      @Value("${reviews.stream.source:local}") String source) {
+        this.bufferSize = bufferSize;
+        this.source = source;
+    }
+
+    /**
+     * Called by the handler for every review it saved. Ignored when the feed is populated from the
+     * Mongo change stream, which already sees those writes.
+     */
+    public void reviewSaved(Review review) {
+        if(LOCAL_SOURCE.equals(source)) {
+            publish(review);
+        }
+    }
+
+    /**
+     * Saves on different threads would race on the sink, emissions are serialized here instead of
+     * spinning on FAIL_NON_SERIALIZED. The lock is only held for the hand-off to the watcher buffers,
+     * directBestEffort never waits for a watcher.
+     */
+    public synchronized void publish(Review review) {
+        sink.emitNext(review, Sinks.EmitFailureHandler.FAIL_FAST);
+    }
+
+    /**
+     * Reviews saved from now on, only those of movieInfoId when it is not null.
+     */
+    public Flux<Review> watch(Long movieInfoId) {
+        return sink.asFlux()
+                .filter(review -> movieInfoId == null || movieInfoId.equals(review.getMovieInfoId()))
+                .onBackpressureBuffer(bufferSize,
+                        review -> log.debug("Dropped review {} for a slow watcher", review.getReviewId()),
+                        BufferOverflowStrategy.DROP_OLDEST);
+    }
+
+    public int watcherCount() {
+        return sink.currentSubscriberCount();
+    }
+}
@@ -0,0 +1,203 @@
+package com.reactivespring.service;
+
+import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewStats;
+import com.reactivespring.repository.ReviewReactiveRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Keeps a ReviewStats document per movie up to date with atomic $inc updates as reviews are added,
+ * updated and removed, so reading the rating aggregates of a movie is a single document lookup.
+ * Only reviews with a rating are counted. min and max can not be walked back when a review is
+ * removed, the periodic rebuild recomputes every document from the reviews to fix them and any
+ * other drift. Every update bumps the version of the document, and the rebuild only replaces a
+ * document whose version did not move while its reviews were read, recomputing it otherwise, so
+ * it never overwrites concurrent updates.
+ */
+@Service
+@Slf4j
+public class ReviewStatsService {
+
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+    private ReviewReactiveRepository reviewReactiveRepository;
+
+    private static final int REBUILD_RETRIES = 3;
+
+    @Value("${reviews.stats.rebuildConcurrency:4}")
+    private Integer rebuildConcurrency;
+
+    public ReviewStatsService(ReactiveMongoTemplate reactiveMongoTemplate, ReviewReactiveRepository reviewReactiveRepository) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.reviewReactiveRepository = reviewReactiveRepository;
+    }
+
+    public Mono<ReviewStats> getStats(Long movieInfoId) {
+        return reactiveMongoTemplate.findById(movieInfoId, ReviewStats.class);
+    }
+
+    public Mono<Void> reviewAdded(Review review) {
+        return reviewsAdded(List.of(review));
+    }
+
+    /**
+     * Counts a batch of added reviews with one upsert per movie rather than one per review.
+     */
+    public Mono<Void> reviewsAdded(List<Review> reviews) {
+        var reviewsByMovie = reviews.stream()
+                .filter(ReviewStatsService::isRated)
+                .collect(Collectors.groupingBy(Review::getMovieInfoId));
+        return Flux.fromIterable(reviewsByMovie.entrySet())
+                .flatMap(entry -> {
+                    var update = new Update()
+                            .inc("count", (long) entry.getValue().size())
+                            .inc("version", 1L);
+                    var sum = 0.0;
+                    var min = Double.MAX_VALUE;
+                    var max = -Double.MAX_VALUE;
+                    var histogram = new HashMap<String, Long>();
+                    for (Review review : entry.getValue()) {
+                        sum += review.getRating();
+                        min = Math.min(min, review.getRating());
+                        max = Math.max(max, review.getRating());
+                        histogram.merge(histogramField(review.getRating()), 1L, Long::sum);
+                    }
+                    update.inc("sum", sum).min("min", min).max("max", max);
+                    histogram.forEach(update::inc);
+                    return reactiveMongoTemplate.upsert(query(where("movieInfoId").is(entry.getKey())), update, ReviewStats.class);
+                })
+                .then();
+    }
+
+    public Mono<Void> reviewRemoved(Review review) {
+        if(!isRated(review)) {
+            return Mono.empty();
+        }
+        var update = new Update()
+                .inc("count", -1L)
+                .inc("sum", -review.getRating())
+                .inc(histogramField(review.getRating()), -1L)
+                .inc("version", 1L);
+        return reactiveMongoTemplate.updateFirst(query(where("movieInfoId").is(review.getMovieInfoId())), update, ReviewStats.class)
+                .then();
+    }
+
+    /**
+     * Applies the rating change of a review to the stats of its movie as a single update. A review
+     * moved to another movie, or gaining or losing its rating, is counted as removed and added.
+     */
+    public Mono<Void> reviewUpdated(Review previous, Review updated) {
+        if(!isRated(previous) || !isRated(updated) || !previous.getMovieInfoId().equals(updated.getMovieInfoId())) {
+            return reviewRemoved(previous).then(reviewAdded(updated));
+        }
+        var update = new Update()
+                .inc("sum", updated.getRating() - previous.getRating())
+                .min("min", updated.getRating())
+                .max("max", updated.getRating())
+                .inc("version", 1L);
+        var previousBucket = histogramField(previous.getRating());
+        var updatedBucket = histogramField(updated.getRating());
+        if(!previousBucket.equals(updatedBucket)) {
+            update.inc(previousBucket, -1L).inc(updatedBucket, 1L);
+        }
+        return reactiveMongoTemplate.updateFirst(query(where("movieInfoId").is(updated.getMovieInfoId())), update, ReviewStats.class)
+                .then();
+    }
+
+    @Scheduled(cron = "${reviews.stats.rebuildCron:0 0 3 * * *}")
+    public void scheduledRebuild() {
+        rebuildStats()
+                .subscribe(rebuilt -> log.info("Rebuilt review stats of {} movies", rebuilt),
+                        ex -> log.error("Review stats rebuild failed : {}", ex.getMessage(), ex));
+    }
+
+    /**
+     * Recomputes the stats of every reviewed movie from its reviews and drops the stats of movies
+     * left without rated reviews. Emits the number of rebuilt stats documents.
+     */
+    public Mono<Long> rebuildStats() {
+        var movieInfoIds = Aggregation.newAggregation(Aggregation.group("movieInfoId"))
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+        return reactiveMongoTemplate.aggregate(movieInfoIds, Review.class, Document.class)
+                .filter(document -> document.get("_id") != null)
+                .map(document -> document.get("_id", Number.class).longValue())
+                .flatMap(this::rebuildStats, rebuildConcurrency)
+                .count()
+                .flatMap(rebuilt -> reactiveMongoTemplate.remove(query(where("count").lte(0)), ReviewStats.class)
+                        .thenReturn(rebuilt));
+    }
+
+    private Mono<ReviewStats> rebuildStats(Long movieInfoId) {
+        return Mono.defer(() -> reactiveMongoTemplate.findById(movieInfoId, ReviewStats.class)
+                        .map(Optional::of)
+                        .defaultIfEmpty(Optional.empty())
+                        .flatMap(current -> reviewReactiveRepository.getReviewByMovieInfoId(movieInfoId)
+                                .filter(ReviewStatsService::isRated)
+                                .reduce(new ReviewStats(movieInfoId, 0L, 0.0, null, null, new HashMap<>(), 0L), ReviewStatsService::accumulate)
+                                .flatMap(rebuilt -> current.isPresent()
+                                        ? replace(current.get(), rebuilt)
+                                        : reactiveMongoTemplate.insert(rebuilt))))
+                .retryWhen(Retry.max(REBUILD_RETRIES)
+                        .filter(ex -> ex instanceof OptimisticLockingFailureException || ex instanceof DuplicateKeyException))
+                .onErrorResume(Exceptions::isRetryExhausted, ex -> {
+                    log.warn("Skipped rebuilding the review stats of movie {}, they kept changing", movieInfoId);
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Replaces the stats document with the rebuilt one, provided its version is still the one read
+     * before the reviews were.
+     */
+    private Mono<ReviewStats> replace(ReviewStats current, ReviewStats rebuilt) {
+        rebuilt.setVersion(current.getVersion() == null ? 1L : current.getVersion() + 1);
+        var unchanged = query(where("movieInfoId").is(current.getMovieInfoId()).and("version").is(current.getVersion()));
+        return reactiveMongoTemplate.findAndReplace(unchanged, rebuilt)
+                .map(replaced -> rebuilt)
+                .switchIfEmpty(Mono.error(() -> new OptimisticLockingFailureException(
+                        "Review stats of movie " + current.getMovieInfoId() + " changed during the rebuild")));
+    }
+
+    private static ReviewStats accumulate(ReviewStats stats, Review review) {
+        var rating = review.getRating();
+        stats.setCount(stats.getCount() + 1);
+        stats.setSum(stats.getSum() + rating);
+        stats.setMin(stats.getMin() == null ? rating : Math.min(stats.getMin(), rating));
+        stats.setMax(stats.getMax() == null ? rating : Math.max(stats.getMax(), rating));
+        stats.getHistogram().merge(histogramBucket(rating), 1L, Long::sum);
+        return stats;
+    }
+
+    private static boolean isRated(Review review) {
+        return review.getMovieInfoId() != null && review.getRating() != null;
+    }
+
+    private static String histogramField(Double rating) {
+        return "histogram." + histogramBucket(rating);
+    }
+
+    private static String histogramBucket(Double rating) {
+        return String.valueOf((long) Math.floor(rating));
+    }
+}
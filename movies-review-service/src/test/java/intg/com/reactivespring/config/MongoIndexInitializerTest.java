@@ -0,0 +1,40 @@
+package com.reactivespring.config;
+
+import com.reactivespring.domain.Review;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.test.StepVerifier;
+
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataMongoTest
+@ActiveProfiles("test")
+@Import(MongoIndexInitializer.class)
+class MongoIndexInitializerTest {
+
+    @Autowired
+    MongoIndexInitializer mongoIndexInitializer;
+
+    @Autowired
+    ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Test
+    void ensureIndexes() {
+        mongoIndexInitializer.ensureIndexes().block();
+
+        StepVerifier.create(reactiveMongoTemplate.indexOps(Review.class).getIndexInfo()
+                        .map(IndexInfo::getName)
+                        .collect(Collectors.toSet()))
+                .assertNext(indexNames -> {
+                    assertTrue(indexNames.contains("movieInfoId_rating"));
+                })
+                .verifyComplete();
+    }
+}
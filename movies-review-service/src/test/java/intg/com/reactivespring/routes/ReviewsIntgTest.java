@@ -1,25 +1,40 @@
 package com.reactivespring.routes;
 
+import com.reactivespring.domain.BulkItemResult;
+import com.reactivespring.domain.MovieReviews;
 import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewStats;
+import com.reactivespring.handler.ReviewHandler;
 import com.reactivespring.repository.ReviewReactiveRepository;
+import com.reactivespring.service.ReviewStatsService;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @ActiveProfiles("test")
 @AutoConfigureWebTestClient
+@AutoConfigureMetrics
 public class ReviewsIntgTest {
 
     @Autowired
@@ -28,6 +43,12 @@ public class ReviewsIntgTest {
     @Autowired
     ReviewReactiveRepository reviewReactiveRepository;
 
+    @Autowired
+    ReviewStatsService reviewStatsService;
+
+    @Autowired
+    ReactiveMongoTemplate reactiveMongoTemplate;
+
     private static final String REVIEW_URL = "/v1/reviews";
 
     @BeforeEach
@@ -43,6 +64,7 @@ public class ReviewsIntgTest {
     @AfterEach
     void tearDown() {
         reviewReactiveRepository.deleteAll().block();
+        reactiveMongoTemplate.remove(new Query(), ReviewStats.class).block();
     }
 
     @Test
@@ -89,6 +111,21 @@ public class ReviewsIntgTest {
                 .hasSize(2);
     }
 
+    @Test
+    void getAllReviewByMovieInfoId_fields() {
+        var movieInfoId = "1";
+        webTestClient
+                .get()
+                .uri( REVIEW_URL+ "?movieInfoId={id}&fields={fields}", movieInfoId, "rating")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].rating").isEqualTo(9.0)
+                .jsonPath("$[0].comment").doesNotExist();
+    }
+
     @Test
     void updateReview() {
 
@@ -125,4 +162,268 @@ public class ReviewsIntgTest {
                     assertNull(review);
                 });
     }
+
+    @Test
+    void patchReview() {
+        var reviewId = "1";
+        webTestClient
+                .patch()
+                .uri(REVIEW_URL + "/{id}", reviewId)
+                .contentType(ReviewHandler.MERGE_PATCH_JSON)
+                .bodyValue("{\"rating\": 6.5}")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.rating").isEqualTo(6.5)
+                .jsonPath("$.comment").isEqualTo("Excellent Movie");
+
+        StepVerifier.create(reviewReactiveRepository.findById(reviewId))
+                .assertNext(review -> {
+                    assertEquals(6.5, review.getRating());
+                    assertEquals(2L, review.getMovieInfoId());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void patchReview_updatesStats() {
+        var savedReview = webTestClient
+                .post()
+                .uri(REVIEW_URL)
+                .bodyValue(new Review(null, 6L, "Awesome Movie", 9.0))
+                .exchange()
+                .expectStatus()
+                .isCreated()
+                .expectBody(Review.class)
+                .returnResult()
+                .getResponseBody();
+
+        assert savedReview != null;
+        webTestClient
+                .patch()
+                .uri(REVIEW_URL + "/{id}", savedReview.getReviewId())
+                .contentType(ReviewHandler.MERGE_PATCH_JSON)
+                .bodyValue("{\"rating\": 5}")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful();
+
+        webTestClient
+                .get()
+                .uri(REVIEW_URL + "/stats?movieInfoId={id}", 6)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.count").isEqualTo(1)
+                .jsonPath("$.average").isEqualTo(5.0)
+                .jsonPath("$.histogram.9").isEqualTo(0)
+                .jsonPath("$.histogram.5").isEqualTo(1);
+    }
+
+    @Test
+    void getReviewsByMovieInfoIds() {
+        webTestClient
+                .get()
+                .uri(REVIEW_URL + "?movieInfoIds={ids}", "2,1,3")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(MovieReviews.class)
+                .consumeWith(listEntityExchangeResult -> {
+                    var movieReviews = listEntityExchangeResult.getResponseBody();
+                    assert movieReviews != null;
+                    assertEquals(2, movieReviews.size());
+                    assertEquals(1L, movieReviews.get(0).getMovieInfoId());
+                    assertEquals(2, movieReviews.get(0).getReviews().size());
+                    assertEquals(2L, movieReviews.get(1).getMovieInfoId());
+                    assertEquals(1, movieReviews.get(1).getReviews().size());
+                });
+    }
+
+    @Test
+    void prometheusMetrics() {
+        webTestClient
+                .get()
+                .uri(REVIEW_URL + "?movieInfoId={id}", 1)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful();
+
+        var metrics = webTestClient
+                .get()
+                .uri("/actuator/prometheus")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertNotNull(metrics);
+        assertTrue(metrics.contains("http_server_requests_seconds_bucket{application=\"movies-review-service\""));
+        assertTrue(metrics.contains("uri=\"/v1/reviews\""));
+        assertTrue(metrics.contains("mongodb_driver_commands_seconds_bucket"));
+    }
+
+    @Test
+    void getAllReview_paged() {
+        var firstPage = webTestClient
+                .get()
+                .uri(REVIEW_URL + "?limit={limit}", 2)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectHeader()
+                .exists(ReviewHandler.NEXT_CURSOR_HEADER)
+                .expectBodyList(Review.class)
+                .hasSize(2)
+                .returnResult();
+
+        var after = firstPage.getResponseHeaders().getFirst(ReviewHandler.NEXT_CURSOR_HEADER);
+        webTestClient
+                .get()
+                .uri(REVIEW_URL + "?limit={limit}&after={after}", 2, after)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectHeader()
+                .doesNotExist(ReviewHandler.NEXT_CURSOR_HEADER)
+                .expectBodyList(Review.class)
+                .hasSize(1);
+    }
+
+    @Test
+    void getReviewStats_afterAddAndDelete() {
+        var review = new Review(null, 5L, "Awesome Movie", 9.5);
+        var savedReview = webTestClient
+                .post()
+                .uri(REVIEW_URL)
+                .bodyValue(review)
+                .exchange()
+                .expectStatus()
+                .isCreated()
+                .expectBody(Review.class)
+                .returnResult()
+                .getResponseBody();
+        webTestClient
+                .post()
+                .uri(REVIEW_URL)
+                .bodyValue(new Review(null, 5L, "Good Movie", 7.0))
+                .exchange()
+                .expectStatus()
+                .isCreated();
+
+        webTestClient
+                .get()
+                .uri(REVIEW_URL + "/stats?movieInfoId={id}", 5)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.count").isEqualTo(2)
+                .jsonPath("$.average").isEqualTo(8.25)
+                .jsonPath("$.min").isEqualTo(7.0)
+                .jsonPath("$.max").isEqualTo(9.5)
+                .jsonPath("$.histogram.9").isEqualTo(1);
+
+        assert savedReview != null;
+        webTestClient
+                .delete()
+                .uri(REVIEW_URL + "/{id}", savedReview.getReviewId())
+                .exchange()
+                .expectStatus()
+                .isNoContent();
+
+        webTestClient
+                .get()
+                .uri(REVIEW_URL + "/stats?movieInfoId={id}", 5)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.count").isEqualTo(1)
+                .jsonPath("$.average").isEqualTo(7.0)
+                .jsonPath("$.histogram.9").isEqualTo(0);
+    }
+
+    @Test
+    void rebuildStats() {
+        var rebuilt = reviewStatsService.rebuildStats().block();
+
+        assertEquals(2L, rebuilt);
+        webTestClient
+                .get()
+                .uri(REVIEW_URL + "/stats?movieInfoId={id}", 1)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.count").isEqualTo(2)
+                .jsonPath("$.average").isEqualTo(9.0)
+                .jsonPath("$.histogram.9").isEqualTo(2);
+    }
+
+    @Test
+    void rebuildStats_replacesDriftedStats() {
+        reactiveMongoTemplate.insert(new ReviewStats(1L, 5L, 20.0, 1.0, 9.0, Map.of("1", 3L, "9", 2L), 7L)).block();
+
+        var rebuilt = reviewStatsService.rebuildStats().block();
+
+        assertEquals(2L, rebuilt);
+        var stats = reviewStatsService.getStats(1L).block();
+        assert stats != null;
+        assertEquals(2L, stats.getCount());
+        assertEquals(9.0, stats.getMin());
+        assertEquals(Map.of("9", 2L), stats.getHistogram());
+        assertEquals(8L, stats.getVersion());
+    }
+
+    @Test
+    void addReviews_bulk() {
+        var reviews = Flux.just(
+                new Review(null, 3L, "Awesome Movie", 9.0),
+                new Review(null, null, "Awesome Movie1", -9.0),
+                new Review("1", 3L, "Duplicate Review", 8.0),
+                new Review(null, 3L, "Excellent Movie", 7.0));
+
+        var results = webTestClient
+                .post()
+                .uri(REVIEW_URL + "/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .body(reviews, Review.class)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .returnResult(BulkItemResult.class)
+                .getResponseBody();
+
+        StepVerifier.create(results)
+                .assertNext(result -> {
+                    assertEquals(BulkItemResult.CREATED, result.getStatus());
+                    assertNotNull(result.getId());
+                })
+                .assertNext(result -> {
+                    assertEquals(1L, result.getIndex());
+                    assertEquals(BulkItemResult.INVALID, result.getStatus());
+                    assertEquals("review.MovieInfoId : Must not be Null,review.negative : rating is negative and please pass a non-negative value", result.getError());
+                })
+                .assertNext(result -> assertEquals(BulkItemResult.FAILED, result.getStatus()))
+                .assertNext(result -> assertEquals(BulkItemResult.CREATED, result.getStatus()))
+                .verifyComplete();
+
+        webTestClient
+                .get()
+                .uri(REVIEW_URL + "/stats?movieInfoId={id}", 3)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.count").isEqualTo(2)
+                .jsonPath("$.average").isEqualTo(8.0)
+                .jsonPath("$.min").isEqualTo(7.0)
+                .jsonPath("$.max").isEqualTo(9.0);
+    }
 }
@@ -0,0 +1,53 @@
+package com.reactivespring.filter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RequestTimeoutFilterTest {
+
+    RequestTimeoutFilter filter = new RequestTimeoutFilter();
+
+    WebFilterChain slowChain = exchange -> Mono.delay(Duration.ofMillis(300)).then();
+
+    @Test
+    void filter_deadlineAlreadySpent() {
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/v1/reviews?movieInfoId=1")
+                .header(RequestTimeoutFilter.HEADER, "-5"));
+
+        StepVerifier.create(filter.filter(exchange, slowChain))
+                .verifyComplete();
+        assertEquals(HttpStatus.GATEWAY_TIMEOUT, exchange.getResponse().getStatusCode());
+    }
+
+    @Test
+    void filter_noOrInvalidHeader() {
+        var withoutHeader = MockServerWebExchange.from(MockServerHttpRequest.get("/v1/reviews?movieInfoId=1"));
+        var invalidHeader = MockServerWebExchange.from(MockServerHttpRequest.get("/v1/reviews?movieInfoId=1")
+                .header(RequestTimeoutFilter.HEADER, "soon"));
+
+        StepVerifier.create(filter.filter(withoutHeader, slowChain).then(filter.filter(invalidHeader, slowChain)))
+                .verifyComplete();
+        assertNull(withoutHeader.getResponse().getStatusCode());
+        assertNull(invalidHeader.getResponse().getStatusCode());
+    }
+
+    @Test
+    void filter_streamNotTimedOut() {
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/v1/reviews/stream")
+                .header(RequestTimeoutFilter.HEADER, "-5"));
+
+        StepVerifier.create(filter.filter(exchange, slowChain))
+                .verifyComplete();
+        assertNull(exchange.getResponse().getStatusCode());
+    }
+}
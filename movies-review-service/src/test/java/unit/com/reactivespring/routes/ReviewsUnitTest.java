@@ -1,27 +1,43 @@
 package com.reactivespring.routes;
 
+import com.reactivespring.domain.BulkItemResult;
+import com.reactivespring.domain.MovieReviews;
 import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewStats;
 import com.reactivespring.exceptionHandler.GlobalExceptionHandler;
 import com.reactivespring.handler.ReviewHandler;
 import com.reactivespring.repository.ReviewReactiveRepository;
 import com.reactivespring.router.ReviewRouter;
+import com.reactivespring.service.ReviewFeed;
+import com.reactivespring.service.ReviewStatsService;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
 import javax.validation.constraints.Null;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.when;
 
 @WebFluxTest
@@ -32,11 +48,25 @@ public class ReviewsUnitTest {
     @MockBean
     private ReviewReactiveRepository reviewReactiveRepository;
 
+    @MockBean
+    private ReviewStatsService reviewStatsService;
+
+    @MockBean
+    private ReviewFeed reviewFeed;
+
     @Autowired
     private WebTestClient webTestClient;
 
     private static final String REVIEW_URL = "/v1/reviews";
 
+    @BeforeEach
+    void setUp() {
+        when(reviewStatsService.reviewAdded(isA(Review.class))).thenReturn(Mono.empty());
+        when(reviewStatsService.reviewsAdded(anyList())).thenReturn(Mono.empty());
+        when(reviewStatsService.reviewRemoved(isA(Review.class))).thenReturn(Mono.empty());
+        when(reviewStatsService.reviewUpdated(isA(Review.class), isA(Review.class))).thenReturn(Mono.empty());
+    }
+
     @Test
     void addReview() {
         var review = new Review(null, 1L, "Awesome Movie", 9.0);
@@ -66,7 +96,7 @@ public class ReviewsUnitTest {
                 new Review(null, 1L, "Awesome Movie1", 9.0),
                 new Review("1", 2L, "Excellent Movie", 8.0));
 
-        when(reviewReactiveRepository.findAll())
+        when(reviewReactiveRepository.findAllAfter(isNull(), anyInt(), isNull()))
                 .thenReturn(Flux.fromIterable(review));
 
         webTestClient
@@ -75,10 +105,34 @@ public class ReviewsUnitTest {
                 .exchange()
                 .expectStatus()
                 .is2xxSuccessful()
+                .expectHeader()
+                .doesNotExist(ReviewHandler.NEXT_CURSOR_HEADER)
                 .expectBodyList(Review.class)
                 .hasSize(3);
     }
 
+    @Test
+    void getAllReviews_nextCursor() {
+        var review = List.of(
+                new Review("1", 1L, "Awesome Movie", 9.0),
+                new Review("2", 1L, "Awesome Movie1", 9.0),
+                new Review("3", 2L, "Excellent Movie", 8.0));
+
+        when(reviewReactiveRepository.findAllAfter("0", 3, null))
+                .thenReturn(Flux.fromIterable(review));
+
+        webTestClient
+                .get()
+                .uri(REVIEW_URL + "?limit={limit}&after={after}", 2, "0")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectHeader()
+                .valueEquals(ReviewHandler.NEXT_CURSOR_HEADER, "2")
+                .expectBodyList(Review.class)
+                .hasSize(2);
+    }
+
     @Test
     void updateReview() {
 
@@ -109,15 +163,29 @@ public class ReviewsUnitTest {
     }
 
     @Test
-    void deleteReviewById() {
-        var reviewId = "1";
-
+    void updateReview_validate() {
         when(reviewReactiveRepository.findById(isA(String.class)))
                 .thenReturn(Mono.just(new Review("1", 1L, "Awesome Movie", 9.0)));
 
-        when(reviewReactiveRepository.delete(isA(Review.class)))
-                .thenReturn(Mono.empty());
+        webTestClient
+                .put()
+                .uri(REVIEW_URL +"/{id}", "1")
+                .bodyValue(new Review("1", 1L, "Awesome Movie", -9.0))
+                .exchange()
+                .expectStatus()
+                .isBadRequest()
+                .expectBody(String.class)
+                .isEqualTo("review.negative : rating is negative and please pass a non-negative value");
 
+        Mockito.verify(reviewReactiveRepository, Mockito.never()).save(isA(Review.class));
+    }
+
+    @Test
+    void deleteReviewById() {
+        var reviewId = "1";
+
+        when(reviewReactiveRepository.findAndRemoveById(isA(String.class)))
+                .thenReturn(Mono.just(new Review("1", 1L, "Awesome Movie", 9.0)));
 
         webTestClient
                 .delete()
@@ -132,6 +200,79 @@ public class ReviewsUnitTest {
                 });
     }
 
+    @Test
+    void patchReview() {
+        var reviewId = "abc";
+
+        when(reviewReactiveRepository.findAndModifyById(isA(String.class), isA(Update.class)))
+                .thenReturn(Mono.just(new Review("abc", 1L, "Awesome Movie", 9.0)));
+
+        webTestClient
+                .patch()
+                .uri(REVIEW_URL + "/{id}", reviewId)
+                .contentType(ReviewHandler.MERGE_PATCH_JSON)
+                .bodyValue("{\"rating\": 7, \"comment\": null}")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.reviewId").isEqualTo("abc")
+                .jsonPath("$.movieInfoId").isEqualTo(1)
+                .jsonPath("$.rating").isEqualTo(7.0)
+                .jsonPath("$.comment").doesNotExist();
+
+        Mockito.verify(reviewStatsService).reviewUpdated(
+                new Review("abc", 1L, "Awesome Movie", 9.0),
+                new Review("abc", 1L, null, 7.0));
+    }
+
+    @Test
+    void patchReview_validate() {
+        webTestClient
+                .patch()
+                .uri(REVIEW_URL + "/{id}", "abc")
+                .contentType(ReviewHandler.MERGE_PATCH_JSON)
+                .bodyValue("{\"rating\": -1}")
+                .exchange()
+                .expectStatus()
+                .isBadRequest()
+                .expectBody(String.class)
+                .isEqualTo("review.negative : rating is negative and please pass a non-negative value");
+
+        Mockito.verifyNoInteractions(reviewReactiveRepository);
+    }
+
+    @Test
+    void patchReview_removeMovieInfoId() {
+        webTestClient
+                .patch()
+                .uri(REVIEW_URL + "/{id}", "abc")
+                .contentType(ReviewHandler.MERGE_PATCH_JSON)
+                .bodyValue("{\"movieInfoId\": null}")
+                .exchange()
+                .expectStatus()
+                .isBadRequest()
+                .expectBody(String.class)
+                .isEqualTo("review.MovieInfoId : Must not be Null");
+
+        Mockito.verifyNoInteractions(reviewReactiveRepository);
+    }
+
+    @Test
+    void patchReview_notFound() {
+        when(reviewReactiveRepository.findAndModifyById(isA(String.class), isA(Update.class)))
+                .thenReturn(Mono.empty());
+
+        webTestClient
+                .patch()
+                .uri(REVIEW_URL + "/{id}", "def")
+                .contentType(ReviewHandler.MERGE_PATCH_JSON)
+                .bodyValue("{\"comment\": \"Changed my mind\"}")
+                .exchange()
+                .expectStatus()
+                .isNotFound();
+    }
+
     @Test
     void addReview_validate() {
         var review = new Review(null, null, "Awesome Movie", -9.0);
@@ -150,5 +291,194 @@ public class ReviewsUnitTest {
                 .isEqualTo("review.MovieInfoId : Must not be Null,review.negative : rating is negative and please pass a non-negative value");
     }
 
+    @Test
+    void getReviewsByMovieInfoIds() {
+        var reviews = List.of(
+                new Review("1", 1L, "Awesome Movie", 9.0),
+                new Review("2", 1L, "Awesome Movie1", 9.0),
+                new Review("3", 2L, "Excellent Movie", 8.0));
+
+        when(reviewReactiveRepository.findByMovieInfoIdInOrderByMovieInfoId(anyCollection()))
+                .thenReturn(Flux.fromIterable(reviews));
+
+        webTestClient
+                .get()
+                .uri(REVIEW_URL + "?movieInfoIds={ids}", "1,2")
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(MovieReviews.class)
+                .consumeWith(listEntityExchangeResult -> {
+                    var movieReviews = listEntityExchangeResult.getResponseBody();
+                    assert movieReviews != null;
+                    assertEquals(2, movieReviews.size());
+                    assertEquals(1L, movieReviews.get(0).getMovieInfoId());
+                    assertEquals(2, movieReviews.get(0).getReviews().size());
+                    assertEquals(2L, movieReviews.get(1).getMovieInfoId());
+                });
+    }
+
+    @Test
+    void getReviewsByMovieInfoIds_invalidId() {
+        webTestClient
+                .get()
+                .uri(REVIEW_URL + "?movieInfoIds={ids}", "1,abc")
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+    }
+
+    @Test
+    void getReviewStats() {
+        when(reviewStatsService.getStats(1L))
+                .thenReturn(Mono.just(new ReviewStats(1L, 2L, 17.0, 8.0, 9.0, Map.of("8", 1L, "9", 1L), 3L)));
+
+        webTestClient
+                .get()
+                .uri(REVIEW_URL + "/stats?movieInfoId={id}", 1)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBody()
+                .jsonPath("$.count").isEqualTo(2)
+                .jsonPath("$.average").isEqualTo(8.5)
+                .jsonPath("$.histogram.9").isEqualTo(1);
+    }
+
+    @Test
+    void getReviewStats_notFound() {
+        when(reviewStatsService.getStats(anyLong()))
+                .thenReturn(Mono.empty());
+
+        webTestClient
+                .get()
+                .uri(REVIEW_URL + "/stats?movieInfoId={id}", 1)
+                .exchange()
+                .expectStatus()
+                .isNotFound();
+    }
+
+    @Test
+    void addReviews_bulk() {
+        var reviews = Flux.just(
+                new Review(null, 1L, "Awesome Movie", 9.0),
+                new Review(null, null, "Awesome Movie1", 9.0),
+                new Review(null, 2L, "Excellent Movie", 8.0));
+
+        when(reviewReactiveRepository.insertUnordered(anyList()))
+                .thenAnswer(invocation -> {
+                    List<Review> valid = invocation.getArgument(0);
+                    valid.get(0).setReviewId("abc");
+                    return Mono.just(Map.of(1, "E11000 duplicate key error"));
+                });
+
+        webTestClient
+                .post()
+                .uri(REVIEW_URL + "/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .body(reviews, Review.class)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(BulkItemResult.class)
+                .value(results -> {
+                    assertEquals(3, results.size());
+                    assertEquals(BulkItemResult.CREATED, results.get(0).getStatus());
+                    assertEquals("abc", results.get(0).getId());
+                    assertEquals(BulkItemResult.INVALID, results.get(1).getStatus());
+                    assertEquals("review.MovieInfoId : Must not be Null", results.get(1).getError());
+                    assertEquals(BulkItemResult.FAILED, results.get(2).getStatus());
+                    assertEquals(2L, results.get(2).getIndex());
+                });
+    }
+
+    @Test
+    void addReviews_bulk_statsFailure() {
+        var reviews = Flux.just(
+                new Review(null, 1L, "Awesome Movie", 9.0),
+                new Review(null, 2L, "Excellent Movie", 8.0));
+
+        when(reviewReactiveRepository.insertUnordered(anyList()))
+                .thenAnswer(invocation -> {
+                    List<Review> valid = invocation.getArgument(0);
+                    valid.get(0).setReviewId("abc");
+                    valid.get(1).setReviewId("def");
+                    return Mono.just(Map.of());
+                });
+        when(reviewStatsService.reviewsAdded(anyList())).thenReturn(Mono.error(new RuntimeException("Stats not available")));
+
+        webTestClient
+                .post()
+                .uri(REVIEW_URL + "/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .body(reviews, Review.class)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectBodyList(BulkItemResult.class)
+                .value(results -> {
+                    assertEquals(2, results.size());
+                    assertEquals(BulkItemResult.CREATED, results.get(0).getStatus());
+                    assertEquals(BulkItemResult.CREATED, results.get(1).getStatus());
+                    assertEquals("def", results.get(1).getId());
+                });
+    }
 
+    @Test
+    void addReviews_bulk_flushesPartialChunk() {
+        var reviews = Flux.just(new Review(null, 1L, "Awesome Movie", 9.0))
+                .concatWith(Flux.never());
+
+        when(reviewReactiveRepository.insertUnordered(anyList()))
+                .thenAnswer(invocation -> {
+                    List<Review> valid = invocation.getArgument(0);
+                    valid.get(0).setReviewId("abc");
+                    return Mono.just(Map.of());
+                });
+
+        var results = webTestClient
+                .post()
+                .uri(REVIEW_URL + "/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .body(reviews, Review.class)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .returnResult(BulkItemResult.class)
+                .getResponseBody();
+
+        StepVerifier.create(results)
+                .assertNext(result -> {
+                    assertEquals(BulkItemResult.CREATED, result.getStatus());
+                    assertEquals("abc", result.getId());
+                })
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void streamReviews() {
+        when(reviewFeed.watch(1L)).thenReturn(Flux.just(
+                new Review("abc", 1L, "Awesome Movie", 9.0),
+                new Review("def", 1L, "Awesome Movie1", 8.0)));
+
+        webTestClient
+                .get()
+                .uri(REVIEW_URL + "/stream?movieInfoId={id}", 1)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus()
+                .is2xxSuccessful()
+                .expectHeader()
+                .contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM)
+                .returnResult(Review.class)
+                .getResponseBody()
+                .as(StepVerifier::create)
+                .expectNextMatches(review -> review.getReviewId().equals("abc"))
+                .expectNextMatches(review -> review.getReviewId().equals("def"))
+                .verifyComplete();
+    }
 }
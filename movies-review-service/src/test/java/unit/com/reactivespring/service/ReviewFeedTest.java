@@ -0,0 +1,97 @@
+package com.reactivespring.service;
+
+import com.reactivespring.domain.Review;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReviewFeedTest {
+
+    @Test
+    void watch_filtersOnMovieInfoId() {
+        var reviewFeed = new ReviewFeed(16, ReviewFeed.LOCAL_SOURCE);
+
+        StepVerifier.create(reviewFeed.watch(1L))
+                .then(() -> {
+                    reviewFeed.reviewSaved(new Review("a", 1L, "Awesome Movie", 9.0));
+                    reviewFeed.reviewSaved(new Review("b", 2L, "Excellent Movie", 8.0));
+                    reviewFeed.reviewSaved(new Review("c", 1L, "Awesome Movie1", 7.0));
+                })
+                .expectNextMatches(review -> review.getReviewId().equals("a"))
+                .expectNextMatches(review -> review.getReviewId().equals("c"))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void watch_multicastsToAllWatchers() {
+        var reviewFeed = new ReviewFeed(16, ReviewFeed.LOCAL_SOURCE);
+        var first = reviewFeed.watch(null).take(2).collectList();
+        var second = reviewFeed.watch(null).take(2).collectList();
+
+        StepVerifier.create(first.zipWith(second))
+                .then(() -> {
+                    assertEquals(2, reviewFeed.watcherCount());
+                    reviewFeed.publish(new Review("a", 1L, "Awesome Movie", 9.0));
+                    reviewFeed.publish(new Review("b", 2L, "Excellent Movie", 8.0));
+                })
+                .assertNext(lists -> {
+                    assertEquals(2, lists.getT1().size());
+                    assertEquals(lists.getT1(), lists.getT2());
+                })
+                .verifyComplete();
+        assertEquals(0, reviewFeed.watcherCount());
+    }
+
+    @Test
+    void watch_slowWatcherDropsOldest() {
+        var reviewFeed = new ReviewFeed(2, ReviewFeed.LOCAL_SOURCE);
+
+        StepVerifier.create(reviewFeed.watch(1L), 0)
+                .then(() -> {
+                    for (int i = 0; i < 5; i++) {
+                        reviewFeed.publish(new Review(String.valueOf(i), 1L, "Awesome Movie", 9.0));
+                    }
+                })
+                .thenRequest(2)
+                .expectNextMatches(review -> review.getReviewId().equals("3"))
+                .expectNextMatches(review -> review.getReviewId().equals("4"))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void publish_concurrentSaves() {
+        var reviewFeed = new ReviewFeed(1000, ReviewFeed.LOCAL_SOURCE);
+        var publishers = Flux.range(0, 4)
+                .parallel(4)
+                .runOn(Schedulers.parallel())
+                .doOnNext(publisher -> {
+                    for (int i = 0; i < 250; i++) {
+                        reviewFeed.publish(new Review(publisher + "-" + i, 1L, "Awesome Movie", 9.0));
+                    }
+                })
+                .then();
+
+        StepVerifier.create(reviewFeed.watch(null).take(1000).count())
+                .then(publishers::subscribe)
+                .expectNext(1000L)
+                .verifyComplete();
+    }
+
+    @Test
+    void reviewSaved_ignoredWithChangeStreamSource() {
+        var reviewFeed = new ReviewFeed(16, ReviewFeed.CHANGE_STREAM_SOURCE);
+
+        StepVerifier.create(reviewFeed.watch(null))
+                .then(() -> reviewFeed.reviewSaved(new Review("a", 1L, "Awesome Movie", 9.0)))
+                .expectNoEvent(Duration.ofMillis(100))
+                .thenCancel()
+                .verify();
+    }
+}
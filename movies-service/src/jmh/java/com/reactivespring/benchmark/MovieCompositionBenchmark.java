@@ -0,0 +1,72 @@
+package com.reactivespring.benchmark;
+
+import com.reactivespring.cache.ReactiveLookupCache;
+import com.reactivespring.client.MovieInfoRestClient;
+import com.reactivespring.client.ReviewRestClient;
+import com.reactivespring.controller.MovieServiceController;
+import com.reactivespring.domain.Movie;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.Review;
+import com.reactivespring.resilience.DownstreamGuard;
+import com.reactivespring.resilience.Hedger;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MovieServiceController.getMovieByID with both lookups answered from the caches, i.e. the cost the
+ * service itself adds to a request on top of the downstream calls: cache, single flight, hedging and
+ * circuit breaker wrapping, the deadline and the composition of the Movie.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class MovieCompositionBenchmark {
+
+    private static final String MOVIE_ID = "abc";
+
+    @Param({"10", "500"})
+    int reviewCount;
+
+    @Param({"true", "false"})
+    boolean parallelFetch;
+
+    private MovieServiceController movieServiceController;
+
+    @Setup
+    public void setUp() {
+        var movieInfoCache = new ReactiveLookupCache<String, MovieInfo>(1000, Duration.ofHours(1), Duration.ofSeconds(10), ex -> false);
+        var reviewCache = new ReactiveLookupCache<String, List<Review>>(1000, Duration.ofHours(1), Duration.ofSeconds(10), ex -> false);
+        movieInfoCache.get(MOVIE_ID, id -> Mono.just(Movies.movieInfo(id, 20))).block();
+        reviewCache.get(MOVIE_ID, id -> Mono.just(Movies.reviews(1L, reviewCount))).block();
+
+        // every lookup is a cache hit, the WebClient is never called
+        var webClient = WebClient.create();
+        var hedger = new Hedger("benchmark", false, 0.95, Duration.ofMillis(10), Duration.ofSeconds(1), 0.05, 1000,
+                new SimpleMeterRegistry());
+        var guard = new DownstreamGuard(CircuitBreaker.ofDefaults("benchmark"), 0, Duration.ofMillis(100), ex -> false);
+        movieServiceController = new MovieServiceController(
+                new MovieInfoRestClient(webClient, movieInfoCache, hedger, guard),
+                new ReviewRestClient(webClient, reviewCache, hedger, guard));
+        movieServiceController.setParallelFetch(parallelFetch);
+        movieServiceController.setReviewReserve(Duration.ofMillis(100));
+    }
+
+    @Benchmark
+    public Movie getMovieById() {
+        return movieServiceController.getMovieByID(MOVIE_ID, null).block();
+    }
+}
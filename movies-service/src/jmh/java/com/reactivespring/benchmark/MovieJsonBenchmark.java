@@ -0,0 +1,54 @@
+package com.reactivespring.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.reactivespring.domain.Movie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson encode/decode of the Movie aggregate answered by GET /v1/movies/{id}, from a lightly
+ * reviewed movie to a blockbuster with hundreds of reviews.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class MovieJsonBenchmark {
+
+    @Param({"10", "500"})
+    int reviewCount;
+
+    private ObjectMapper objectMapper;
+    private Movie movie;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        // configured like the ObjectMapper of Spring Boot
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        movie = new Movie(Movies.movieInfo("abc", 20), Movies.reviews(1L, reviewCount));
+        json = objectMapper.writeValueAsBytes(movie);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return objectMapper.writeValueAsBytes(movie);
+    }
+
+    @Benchmark
+    public Movie decode() throws IOException {
+        return objectMapper.readValue(json, Movie.class);
+    }
+}
@@ -0,0 +1,32 @@
+package com.reactivespring.benchmark;
+
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.Review;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Movie infos and reviews shaped like the ones the downstream services answer.
+ */
+final class Movies {
+
+    private Movies() {
+    }
+
+    static MovieInfo movieInfo(String movieInfoId, int castSize) {
+        var cast = IntStream.range(0, castSize)
+                .mapToObj(i -> "Cast Member Number " + i)
+                .collect(Collectors.toList());
+        return new MovieInfo(movieInfoId, "The Dark Knight", 2008, cast, LocalDate.parse("2008-07-18"));
+    }
+
+    static List<Review> reviews(Long movieInfoId, int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new Review(String.valueOf(i), movieInfoId,
+                        "Great pacing, memorable score and a cast at the top of its game, review " + i, (double) (i % 10)))
+                .collect(Collectors.toList());
+    }
+}
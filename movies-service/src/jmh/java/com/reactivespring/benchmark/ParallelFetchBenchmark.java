@@ -0,0 +1,104 @@
+package com.reactivespring.benchmark;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.reactivespring.cache.ReactiveLookupCache;
+import com.reactivespring.client.MovieInfoRestClient;
+import com.reactivespring.client.ReviewRestClient;
+import com.reactivespring.controller.MovieServiceController;
+import com.reactivespring.domain.Movie;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.Review;
+import com.reactivespring.resilience.DownstreamGuard;
+import com.reactivespring.resilience.Hedger;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+
+/**
+ * MovieServiceController.getMovieByID against WireMock stubs of both downstreams answering after
+ * delayMs, with the movie info and the reviews fetched one after the other or in parallel. The
+ * sequential fetch should take about twice delayMs and the parallel one about delayMs, the time of
+ * the slowest lookup instead of the sum of both. The caches are cleared before every call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ParallelFetchBenchmark {
+
+    private static final String MOVIE_ID = "abc";
+
+    @Param({"20", "100"})
+    int delayMs;
+
+    @Param({"true", "false"})
+    boolean parallelFetch;
+
+    private WireMockServer wireMockServer;
+    private ReactiveLookupCache<String, MovieInfo> movieInfoCache;
+    private ReactiveLookupCache<String, List<Review>> reviewCache;
+    private MovieServiceController movieServiceController;
+
+    @Setup
+    public void setUp() throws Exception {
+        var objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        wireMockServer = new WireMockServer(options().dynamicPort());
+        wireMockServer.start();
+        wireMockServer.stubFor(get(urlEqualTo("/v1/movieinfos/" + MOVIE_ID))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody(objectMapper.writeValueAsString(Movies.movieInfo(MOVIE_ID, 20)))
+                        .withFixedDelay(delayMs)));
+        wireMockServer.stubFor(get(urlPathEqualTo("/v1/reviews"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody(objectMapper.writeValueAsString(Movies.reviews(1L, 10)))
+                        .withFixedDelay(delayMs)));
+
+        movieInfoCache = new ReactiveLookupCache<>(1000, Duration.ofHours(1), Duration.ofSeconds(10), ex -> false);
+        reviewCache = new ReactiveLookupCache<>(1000, Duration.ofHours(1), Duration.ofSeconds(10), ex -> false);
+        var webClient = WebClient.create();
+        var hedger = new Hedger("benchmark", false, 0.95, Duration.ofMillis(10), Duration.ofSeconds(1), 0.05, 1000,
+                new SimpleMeterRegistry());
+        var guard = new DownstreamGuard(CircuitBreaker.ofDefaults("benchmark"), 0, Duration.ofMillis(100), ex -> false);
+        var movieInfoRestClient = new MovieInfoRestClient(webClient, movieInfoCache, hedger, guard);
+        movieInfoRestClient.setMoviesInfoUrl(wireMockServer.baseUrl() + "/v1/movieinfos");
+        var reviewRestClient = new ReviewRestClient(webClient, reviewCache, hedger, guard);
+        reviewRestClient.setReviewsUrl(wireMockServer.baseUrl() + "/v1/reviews");
+
+        movieServiceController = new MovieServiceController(movieInfoRestClient, reviewRestClient);
+        movieServiceController.setParallelFetch(parallelFetch);
+        movieServiceController.setReviewReserve(Duration.ofMillis(100));
+    }
+
+    @TearDown
+    public void tearDown() {
+        wireMockServer.stop();
+    }
+
+    @Benchmark
+    public Movie getMovieById() {
+        movieInfoCache.invalidateAll();
+        reviewCache.invalidateAll();
+        return movieServiceController.getMovieByID(MOVIE_ID, null).block();
+    }
+}
@@ -2,11 +2,14 @@ package com.reactivespring;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import reactor.core.scheduler.Schedulers;
 
 @SpringBootApplication
 public class MoviesServiceApplication {
 
 	public static void main(String[] args) {
+		// task counts and timings of the Reactor schedulers, published to the global Micrometer registry
+		Schedulers.enableMetrics();
 		SpringApplication.run(MoviesServiceApplication.class, args);
 	}
 
@@ -0,0 +1,140 @@
+package com.reactivespring.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Bounded read-through cache for reactive lookups. Entries are evicted by size and by ttl, and
+ * errors matching the negative predicate (e.g. a 404 from the downstream) are cached as well for
+ * negativeTtl, so repeated lookups of an unknown key do not reach the downstream service.
+ * Only completed lookups are cached, de-duplicating concurrent loads is left to {@link SingleFlight}.
+ */
+public class ReactiveLookupCache<K, V> {
+
+    private final Cache<K, Lookup<V>> cache;
+    private final Predicate<Throwable> negativePredicate;
+
+    public ReactiveLookupCache(long maximumSize, Duration ttl, Duration negativeTtl, Predicate<Throwable> negativePredicate) {
+        this.negativePredicate = negativePredicate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new LookupExpiry<K, V>(ttl.toNanos(), negativeTtl.toNanos()))
+                .recordStats()
+                .build();
+    }
+
+    public Mono<V> get(K key, Function<K, Mono<V>> loader) {
+        return Mono.defer(() -> {
+            var cached = cache.getIfPresent(key);
+            if(cached != null) {
+                return cached.toMono();
+            }
+            return load(key, loader)
+                    .doOnNext(lookup -> cache.put(key, lookup))
+                    .flatMap(Lookup::toMono);
+        });
+    }
+
+    public void invalidate(K key) {
+        cache.invalidate(key);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * Publishes the size, hit, miss and eviction counts of the cache as cache.* meters tagged with name.
+     */
+    public ReactiveLookupCache<K, V> bindTo(MeterRegistry meterRegistry, String name) {
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+        return this;
+    }
+
+    private Mono<Lookup<V>> load(K key, Function<K, Mono<V>> loader) {
+        return loader.apply(key)
+                .map(Lookup::found)
+                .onErrorResume(negativePredicate, ex -> Mono.just(Lookup.<V>failed(ex)))
+                .defaultIfEmpty(Lookup.<V>empty());
+    }
+
+    private static final class Lookup<V> {
+
+        private static final Lookup<?> EMPTY = new Lookup<>(null, null);
+
+        private final V value;
+        private final Throwable error;
+
+        private Lookup(V value, Throwable error) {
+            this.value = value;
+            this.error = error;
+        }
+
+        static <V> Lookup<V> found(V value) {
+            return new Lookup<>(value, null);
+        }
+
+        static <V> Lookup<V> failed(Throwable error) {
+            return new Lookup<>(null, error);
+        }
+
+        @SuppressWarnings("unchecked")
+        static <V> Lookup<V> empty() {
+            return (Lookup<V>) EMPTY;
+        }
+
+        boolean isNegative() {
+            return value == null;
+        }
+
+        Mono<V> toMono() {
+            if(error != null) {
+                return Mono.error(error);
+            }
+            return Mono.justOrEmpty(value);
+        }
+    }
+
+    private static final class LookupExpiry<K, V> implements Expiry<K, Lookup<V>> {
+
+        private final long ttlNanos;
+        private final long negativeTtlNanos;
+
+        LookupExpiry(long ttlNanos, long negativeTtlNanos) {
+            this.ttlNanos = ttlNanos;
+            this.negativeTtlNanos = negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(K key, Lookup<V> lookup, long currentTime) {
+            return lookup.isNegative() ? negativeTtlNanos : ttlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(K key, Lookup<V> lookup, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, lookup, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(K key, Lookup<V> lookup, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
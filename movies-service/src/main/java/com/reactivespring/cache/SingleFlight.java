@@ -0,0 +1,38 @@
+package com.reactivespring.cache;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * De-duplicates concurrent lookups of the same key: while a load for a key is in flight, every
+ * other subscriber for that key joins it instead of starting its own. The shared load is
+ * reference counted, it is cancelled once all of its subscribers have cancelled, and the key is
+ * released as soon as the load terminates so the next lookup starts a fresh one.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, Flux<V>> inFlight = new ConcurrentHashMap<>();
+
+    public Mono<V> execute(K key, Function<K, Mono<V>> loader) {
+        return Mono.defer(() -> inFlight.computeIfAbsent(key, k -> share(k, loader)).next());
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private Flux<V> share(K key, Function<K, Mono<V>> loader) {
+        var shared = new AtomicReference<Flux<V>>();
+        // replay(1) so a subscriber joining between the value and the completion still gets the value
+        shared.set(loader.apply(key)
+                .doFinally(signal -> inFlight.remove(key, shared.get()))
+                .flux()
+                .replay(1)
+                .refCount(1));
+        return shared.get();
+    }
+}
@@ -1,34 +1,86 @@
 package com.reactivespring.client;
 
+import com.reactivespring.cache.ReactiveLookupCache;
+import com.reactivespring.cache.SingleFlight;
 import com.reactivespring.domain.MovieInfo;
 import com.reactivespring.exception.MoviesInfoClientException;
 import com.reactivespring.exception.MoviesInfoServerException;
+import com.reactivespring.resilience.Deadline;
+import com.reactivespring.resilience.DownstreamGuard;
+import com.reactivespring.resilience.Hedger;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
 @Component
 @Slf4j
 public class MovieInfoRestClient {
 
     private WebClient webClient;
+    private ReactiveLookupCache<String, MovieInfo> movieInfoCache;
+    private Hedger movieInfoHedger;
+    private DownstreamGuard movieInfoGuard;
+    private final SingleFlight<String, MovieInfo> movieInfoLookups = new SingleFlight<>();
 
-    public MovieInfoRestClient(WebClient webClient) {
+    public MovieInfoRestClient(@Qualifier("movieInfoWebClient") WebClient webClient, ReactiveLookupCache<String, MovieInfo> movieInfoCache,
+                               @Qualifier("movieInfoHedger") Hedger movieInfoHedger,
+                               @Qualifier("movieInfoGuard") DownstreamGuard movieInfoGuard) {
         this.webClient = webClient;
+        this.movieInfoCache = movieInfoCache;
+        this.movieInfoHedger = movieInfoHedger;
+        this.movieInfoGuard = movieInfoGuard;
     }
 
     @Value("${restClient.moviesInfoUrl}")
     private String moviesInfoUrl;
 
+    public void setMoviesInfoUrl(String moviesInfoUrl) {
+        this.moviesInfoUrl = moviesInfoUrl;
+    }
+
     public Mono<MovieInfo> getMovieInfobyId(String movieId){
-        var url = moviesInfoUrl.concat("/{Id}");
+        return getMovieInfobyId(movieId, null);
+    }
+
+    /**
+     * Fetches only the passed in fields of the movie info, all of them when fields is null. Projected
+     * lookups bypass the cache, concurrent identical ones are still coalesced. Fails with a
+     * TimeoutException when the deadline of the request runs out first.
+     */
+    public Mono<MovieInfo> getMovieInfobyId(String movieId, List<String> fields){
+        if(fields == null) {
+            return Deadline.enforce(movieInfoCache.get(movieId, id -> movieInfoLookups.execute(id, key -> guardedFetch(key, null))), Duration.ZERO);
+        }
+        var fieldsParam = String.join(",", fields);
+        return Deadline.enforce(movieInfoLookups.execute(movieId + "?fields=" + fieldsParam, key -> guardedFetch(movieId, fieldsParam)), Duration.ZERO);
+    }
+
+    private Mono<MovieInfo> guardedFetch(String movieId, String fields){
+        return movieInfoHedger.hedge(() -> movieInfoGuard.protect(() -> fetchMovieInfo(movieId, fields)));
+    }
+
+    private Mono<MovieInfo> fetchMovieInfo(String movieId, String fields){
+        var url = UriComponentsBuilder
+                .fromUriString(moviesInfoUrl.concat("/{Id}"))
+                .queryParamIfPresent("fields", Optional.ofNullable(fields))
+                .encode()
+                .buildAndExpand(movieId)
+                .toUri();
 
-        return webClient
+        return Mono.deferContextual(context -> webClient
                 .get()
-                .uri(url,movieId)
+                .uri(url)
+                .headers(headers -> Deadline.from(context)
+                        .ifPresent(deadline -> headers.set(Deadline.HEADER, String.valueOf(deadline.remaining().toMillis()))))
                 .retrieve()
                 .onStatus(HttpStatus::is4xxClientError, clientResponse -> {
                     log.error("Status code is :{}",clientResponse.statusCode().value());
@@ -46,8 +98,7 @@ public class MovieInfoRestClient {
                             .flatMap(errorMessage -> Mono.error(new MoviesInfoServerException("Internal Server Exception in MovieInfo Service"))
                             );
                 })
-                .bodyToMono(MovieInfo.class)
-                .log();
+                .bodyToMono(MovieInfo.class));
     }
 
 
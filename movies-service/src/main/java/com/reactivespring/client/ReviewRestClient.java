@@ -1,11 +1,15 @@
 package com.reactivespring.client;
 
+import com.reactivespring.cache.ReactiveLookupCache;
+import com.reactivespring.cache.SingleFlight;
 import com.reactivespring.domain.Review;
-import com.reactivespring.exception.MoviesInfoClientException;
-import com.reactivespring.exception.MoviesInfoServerException;
 import com.reactivespring.exception.ReviewsClientException;
 import com.reactivespring.exception.ReviewsServerException;
+import com.reactivespring.resilience.Deadline;
+import com.reactivespring.resilience.DownstreamGuard;
+import com.reactivespring.resilience.Hedger;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
@@ -14,27 +18,69 @@ import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
 @Component
 @Slf4j
 public class ReviewRestClient {
 
     private WebClient webClient;
+    private ReactiveLookupCache<String, List<Review>> reviewCache;
+    private Hedger reviewHedger;
+    private DownstreamGuard reviewGuard;
+    private final SingleFlight<String, List<Review>> reviewLookups = new SingleFlight<>();
 
-    public ReviewRestClient(WebClient webClient) {
+    public ReviewRestClient(@Qualifier("reviewWebClient") WebClient webClient, ReactiveLookupCache<String, List<Review>> reviewCache,
+                            @Qualifier("reviewHedger") Hedger reviewHedger,
+                            @Qualifier("reviewGuard") DownstreamGuard reviewGuard) {
         this.webClient = webClient;
+        this.reviewCache = reviewCache;
+        this.reviewHedger = reviewHedger;
+        this.reviewGuard = reviewGuard;
     }
 
     @Value("${restClient.reviewsUrl}")
     private String reviewsUrl;
 
+    public void setReviewsUrl(String reviewsUrl) {
+        this.reviewsUrl = reviewsUrl;
+    }
+
     public Flux<Review> getReviewByMovieID(String movieId){
+        return getReviewByMovieID(movieId, null);
+    }
+
+    /**
+     * Fetches only the passed in fields of the reviews, all of them when fields is null. Projected
+     * lookups bypass the cache, concurrent identical ones are still coalesced.
+     */
+    public Flux<Review> getReviewByMovieID(String movieId, List<String> fields){
+        if(fields == null) {
+            return reviewCache.get(movieId, id -> reviewLookups.execute(id, key -> guardedFetch(key, null)))
+                    .flatMapIterable(Function.identity());
+        }
+        var fieldsParam = String.join(",", fields);
+        return reviewLookups.execute(movieId + "?fields=" + fieldsParam, key -> guardedFetch(movieId, fieldsParam))
+                .flatMapIterable(Function.identity());
+    }
+
+    private Mono<List<Review>> guardedFetch(String movieId, String fields){
+        return reviewHedger.hedge(() -> reviewGuard.protect(() -> fetchReviews(movieId, fields).collectList()));
+    }
+
+    private Flux<Review> fetchReviews(String movieId, String fields){
         var url = UriComponentsBuilder
                 .fromUriString(reviewsUrl)
                 .queryParam("movieInfoId", movieId)
+                .queryParamIfPresent("fields", Optional.ofNullable(fields))
                 .buildAndExpand().toUriString();
-        return webClient
+        return Flux.deferContextual(context -> webClient
                 .get()
                 .uri(url)
+                .headers(headers -> Deadline.from(context)
+                        .ifPresent(deadline -> headers.set(Deadline.HEADER, String.valueOf(deadline.remaining().toMillis()))))
                 .retrieve()
                 .onStatus(HttpStatus::is4xxClientError, clientResponse -> {
                     log.error("Status code is :{}",clientResponse.statusCode().value());
@@ -51,8 +97,7 @@ public class ReviewRestClient {
                             .flatMap(errorMessage -> Mono.error(new ReviewsServerException("Internal Server Exception in Review Service"))
                             );
                 })
-                .bodyToFlux(Review.class)
-                .log();
+                .bodyToFlux(Review.class));
     }
 
 }
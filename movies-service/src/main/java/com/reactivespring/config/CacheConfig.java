@@ -0,0 +1,44 @@
+package com.reactivespring.config;
+
+import com.reactivespring.cache.ReactiveLookupCache;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.Review;
+import com.reactivespring.exception.MoviesInfoClientException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+public class CacheConfig {
+
+    @Bean
+    public ReactiveLookupCache<String, MovieInfo> movieInfoCache(
+            @Value("${restClient.cache.movieInfo.maximumSize:10000}") long maximumSize,
+            @Value("${restClient.cache.movieInfo.ttl:5m}") Duration ttl,
+            @Value("${restClient.cache.movieInfo.negativeTtl:10s}") Duration negativeTtl,
+            MeterRegistry meterRegistry) {
+        return new ReactiveLookupCache<String, MovieInfo>(maximumSize, ttl, negativeTtl, CacheConfig::isMovieInfoNotFound)
+                .bindTo(meterRegistry, "movieInfo");
+    }
+
+    @Bean
+    public ReactiveLookupCache<String, List<Review>> reviewCache(
+            @Value("${restClient.cache.reviews.maximumSize:10000}") long maximumSize,
+            @Value("${restClient.cache.reviews.ttl:30s}") Duration ttl,
+            @Value("${restClient.cache.reviews.negativeTtl:10s}") Duration negativeTtl,
+            MeterRegistry meterRegistry) {
+        // a 404 from the review service already resolves to an empty list, so nothing to cache negatively
+        return new ReactiveLookupCache<String, List<Review>>(maximumSize, ttl, negativeTtl, ex -> false)
+                .bindTo(meterRegistry, "reviews");
+    }
+
+    private static boolean isMovieInfoNotFound(Throwable ex) {
+        return ex instanceof MoviesInfoClientException
+                && Integer.valueOf(HttpStatus.NOT_FOUND.value()).equals(((MoviesInfoClientException) ex).getStatusCode());
+    }
+}
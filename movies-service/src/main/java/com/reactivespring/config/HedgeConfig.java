@@ -0,0 +1,37 @@
+package com.reactivespring.config;
+
+import com.reactivespring.resilience.Hedger;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class HedgeConfig {
+
+    @Bean
+    public Hedger movieInfoHedger(
+            @Value("${restClient.hedge.movieInfo.enabled:false}") boolean enabled,
+            @Value("${restClient.hedge.movieInfo.percentile:0.95}") double percentile,
+            @Value("${restClient.hedge.movieInfo.minDelay:10ms}") Duration minDelay,
+            @Value("${restClient.hedge.movieInfo.maxDelay:1s}") Duration maxDelay,
+            @Value("${restClient.hedge.movieInfo.budgetRatio:0.05}") double budgetRatio,
+            @Value("${restClient.hedge.movieInfo.windowSize:1000}") int windowSize,
+            MeterRegistry meterRegistry) {
+        return new Hedger("movieInfo", enabled, percentile, minDelay, maxDelay, budgetRatio, windowSize, meterRegistry);
+    }
+
+    @Bean
+    public Hedger reviewHedger(
+            @Value("${restClient.hedge.reviews.enabled:false}") boolean enabled,
+            @Value("${restClient.hedge.reviews.percentile:0.95}") double percentile,
+            @Value("${restClient.hedge.reviews.minDelay:10ms}") Duration minDelay,
+            @Value("${restClient.hedge.reviews.maxDelay:1s}") Duration maxDelay,
+            @Value("${restClient.hedge.reviews.budgetRatio:0.05}") double budgetRatio,
+            @Value("${restClient.hedge.reviews.windowSize:1000}") int windowSize,
+            MeterRegistry meterRegistry) {
+        return new Hedger("reviews", enabled, percentile, minDelay, maxDelay, budgetRatio, windowSize, meterRegistry);
+    }
+}
@@ -0,0 +1,76 @@
+package com.reactivespring.config;
+
+import com.reactivespring.exception.MoviesInfoClientException;
+import com.reactivespring.exception.MoviesInfoServerException;
+import com.reactivespring.exception.ReviewsClientException;
+import com.reactivespring.exception.ReviewsServerException;
+import com.reactivespring.resilience.DownstreamGuard;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+
+import java.time.Duration;
+
+@Configuration
+public class ResilienceConfig {
+
+    @Bean
+    public CircuitBreakerRegistry circuitBreakerRegistry() {
+        return CircuitBreakerRegistry.ofDefaults();
+    }
+
+    @Bean
+    public DownstreamGuard movieInfoGuard(CircuitBreakerRegistry circuitBreakerRegistry,
+            @Value("${restClient.resilience.movieInfo.failureRateThreshold:50}") float failureRateThreshold,
+            @Value("${restClient.resilience.movieInfo.slidingWindowSize:20}") int slidingWindowSize,
+            @Value("${restClient.resilience.movieInfo.minimumNumberOfCalls:10}") int minimumNumberOfCalls,
+            @Value("${restClient.resilience.movieInfo.waitDurationInOpenState:10s}") Duration waitDurationInOpenState,
+            @Value("${restClient.resilience.movieInfo.permittedCallsInHalfOpenState:3}") int permittedCallsInHalfOpenState,
+            @Value("${restClient.resilience.movieInfo.maxRetries:2}") int maxRetries,
+            @Value("${restClient.resilience.movieInfo.retryBackoff:100ms}") Duration retryBackoff) {
+        var config = circuitBreakerConfig(failureRateThreshold, slidingWindowSize, minimumNumberOfCalls,
+                waitDurationInOpenState, permittedCallsInHalfOpenState);
+        return new DownstreamGuard(circuitBreakerRegistry.circuitBreaker("movieInfo", config),
+                maxRetries, retryBackoff, ResilienceConfig::isRetryable);
+    }
+
+    @Bean
+    public DownstreamGuard reviewGuard(CircuitBreakerRegistry circuitBreakerRegistry,
+            @Value("${restClient.resilience.reviews.failureRateThreshold:50}") float failureRateThreshold,
+            @Value("${restClient.resilience.reviews.slidingWindowSize:20}") int slidingWindowSize,
+            @Value("${restClient.resilience.reviews.minimumNumberOfCalls:10}") int minimumNumberOfCalls,
+            @Value("${restClient.resilience.reviews.waitDurationInOpenState:10s}") Duration waitDurationInOpenState,
+            @Value("${restClient.resilience.reviews.permittedCallsInHalfOpenState:3}") int permittedCallsInHalfOpenState,
+            @Value("${restClient.resilience.reviews.maxRetries:2}") int maxRetries,
+            @Value("${restClient.resilience.reviews.retryBackoff:100ms}") Duration retryBackoff) {
+        var config = circuitBreakerConfig(failureRateThreshold, slidingWindowSize, minimumNumberOfCalls,
+                waitDurationInOpenState, permittedCallsInHalfOpenState);
+        return new DownstreamGuard(circuitBreakerRegistry.circuitBreaker("reviews", config),
+                maxRetries, retryBackoff, ResilienceConfig::isRetryable);
+    }
+
+    private static CircuitBreakerConfig circuitBreakerConfig(float failureRateThreshold, int slidingWindowSize,
+                                                             int minimumNumberOfCalls, Duration waitDurationInOpenState,
+                                                             int permittedCallsInHalfOpenState) {
+        return CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumNumberOfCalls)
+                .waitDurationInOpenState(waitDurationInOpenState)
+                // after the wait a few probe calls decide whether the circuit closes again
+                .permittedNumberOfCallsInHalfOpenState(permittedCallsInHalfOpenState)
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                // a 4xx says nothing about the health of the downstream
+                .ignoreExceptions(MoviesInfoClientException.class, ReviewsClientException.class)
+                .build();
+    }
+
+    private static boolean isRetryable(Throwable ex) {
+        return ex instanceof MoviesInfoServerException
+                || ex instanceof ReviewsServerException
+                || ex instanceof WebClientRequestException;
+    }
+}
@@ -1,14 +1,101 @@
 package com.reactivespring.config;
 
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.web.reactive.client.WebClientExchangeTags;
+import org.springframework.boot.actuate.metrics.web.reactive.client.WebClientExchangeTagsProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
+import java.time.Duration;
+
+/**
+ * One connection pool and WebClient per downstream, so a slow review service can only exhaust its
+ * own connections and never delays movie info lookups. Every pool publishes its active, idle and
+ * pending connection gauges to Micrometer under reactor.netty.connection.provider, tagged with the
+ * pool name.
+ * Calls are timed as http.client.requests by the WebClient.Builder of Spring Boot, tagged with the
+ * downstream instead of the request uri, which holds the movie id.
+ */
 @Configuration
 public class WebClientConfig {
 
+    static final String DOWNSTREAM_ATTRIBUTE = WebClientConfig.class.getName() + ".downstream";
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider movieInfoConnectionProvider(
+            @Value("${restClient.http.movieInfo.maxConnections:100}") int maxConnections,
+            @Value("${restClient.http.movieInfo.pendingAcquireMaxCount:200}") int pendingAcquireMaxCount,
+            @Value("${restClient.http.movieInfo.pendingAcquireTimeout:2s}") Duration pendingAcquireTimeout,
+            @Value("${restClient.http.movieInfo.maxIdleTime:30s}") Duration maxIdleTime) {
+        return connectionProvider("movieInfo", maxConnections, pendingAcquireMaxCount, pendingAcquireTimeout, maxIdleTime);
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider reviewConnectionProvider(
+            @Value("${restClient.http.reviews.maxConnections:100}") int maxConnections,
+            @Value("${restClient.http.reviews.pendingAcquireMaxCount:200}") int pendingAcquireMaxCount,
+            @Value("${restClient.http.reviews.pendingAcquireTimeout:2s}") Duration pendingAcquireTimeout,
+            @Value("${restClient.http.reviews.maxIdleTime:30s}") Duration maxIdleTime) {
+        return connectionProvider("reviews", maxConnections, pendingAcquireMaxCount, pendingAcquireTimeout, maxIdleTime);
+    }
+
+    @Bean
+    public WebClient movieInfoWebClient(WebClient.Builder builder,
+            @Qualifier("movieInfoConnectionProvider") ConnectionProvider connectionProvider,
+            @Value("${restClient.http.movieInfo.connectTimeout:1s}") Duration connectTimeout,
+            @Value("${restClient.http.movieInfo.responseTimeout:3s}") Duration responseTimeout) {
+        return webClient("movieInfo", builder, connectionProvider, connectTimeout, responseTimeout);
+    }
+
+    @Bean
+    public WebClient reviewWebClient(WebClient.Builder builder,
+            @Qualifier("reviewConnectionProvider") ConnectionProvider connectionProvider,
+            @Value("${restClient.http.reviews.connectTimeout:1s}") Duration connectTimeout,
+            @Value("${restClient.http.reviews.responseTimeout:3s}") Duration responseTimeout) {
+        return webClient("reviews", builder, connectionProvider, connectTimeout, responseTimeout);
+    }
+
     @Bean
-    public WebClient webClient(WebClient.Builder builder){
-        return builder.build();
+    public WebClientExchangeTagsProvider downstreamTagsProvider() {
+        return (request, response, throwable) -> Tags.of(
+                WebClientExchangeTags.method(request),
+                WebClientExchangeTags.clientName(request),
+                WebClientExchangeTags.status(response, throwable),
+                WebClientExchangeTags.outcome(response),
+                Tag.of("downstream", request.attribute(DOWNSTREAM_ATTRIBUTE).map(String::valueOf).orElse("none")));
+    }
+
+    private static ConnectionProvider connectionProvider(String name, int maxConnections, int pendingAcquireMaxCount,
+                                                         Duration pendingAcquireTimeout, Duration maxIdleTime) {
+        return ConnectionProvider.builder(name)
+                .maxConnections(maxConnections)
+                // requests beyond the pool fail fast instead of queueing without bound
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .evictInBackground(maxIdleTime)
+                .metrics(true)
+                .build();
+    }
+
+    private static WebClient webClient(String downstream, WebClient.Builder builder, ConnectionProvider connectionProvider,
+                                       Duration connectTimeout, Duration responseTimeout) {
+        var httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .keepAlive(true)
+                .responseTimeout(responseTimeout);
+        return builder
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .defaultRequest(request -> request.attribute(DOWNSTREAM_ATTRIBUTE, downstream))
+                .build();
     }
 }
@@ -0,0 +1,45 @@
+package com.reactivespring.controller;
+
+import com.reactivespring.cache.ReactiveLookupCache;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.Review;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/v1/cache")
+public class CacheStatsController {
+
+    ReactiveLookupCache<String, MovieInfo> movieInfoCache;
+    ReactiveLookupCache<String, List<Review>> reviewCache;
+
+    public CacheStatsController(ReactiveLookupCache<String, MovieInfo> movieInfoCache,
+                                ReactiveLookupCache<String, List<Review>> reviewCache) {
+        this.movieInfoCache = movieInfoCache;
+        this.reviewCache = reviewCache;
+    }
+
+    @GetMapping("/stats")
+    public Mono<Map<String, Map<String, Long>>> getCacheStats(){
+        var stats = new LinkedHashMap<String, Map<String, Long>>();
+        stats.put("movieInfo", toStats(movieInfoCache));
+        stats.put("reviews", toStats(reviewCache));
+        return Mono.just(stats);
+    }
+
+    private static Map<String, Long> toStats(ReactiveLookupCache<?, ?> cache) {
+        var cacheStats = cache.stats();
+        var stats = new LinkedHashMap<String, Long>();
+        stats.put("size", cache.estimatedSize());
+        stats.put("hitCount", cacheStats.hitCount());
+        stats.put("missCount", cacheStats.missCount());
+        stats.put("evictionCount", cacheStats.evictionCount());
+        return stats;
+    }
+}
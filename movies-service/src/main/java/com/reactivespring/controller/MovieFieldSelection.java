@@ -0,0 +1,70 @@
+package com.reactivespring.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parts of a Movie selected through the fields param. movieInfo and reviewList select a whole part,
+ * movieInfo.name or reviewList.rating select single fields of it. Reviews are only fetched when
+ * reviewList is selected, and when movieInfo is not selected only its id is fetched.
+ */
+class MovieFieldSelection {
+
+    private static final String MOVIE_INFO = "movieInfo";
+    private static final String REVIEW_LIST = "reviewList";
+    private static final MovieFieldSelection ALL = new MovieFieldSelection(null, true, null);
+
+    // null means every field
+    private final List<String> movieInfoFields;
+    private final boolean reviews;
+    // null means every field
+    private final List<String> reviewFields;
+
+    private MovieFieldSelection(List<String> movieInfoFields, boolean reviews, List<String> reviewFields) {
+        this.movieInfoFields = movieInfoFields;
+        this.reviews = reviews;
+        this.reviewFields = reviewFields;
+    }
+
+    static MovieFieldSelection of(List<String> fields) {
+        if(fields == null || fields.isEmpty()) {
+            return ALL;
+        }
+        var movieInfoFields = new ArrayList<String>();
+        var reviewFields = new ArrayList<String>();
+        var wholeMovieInfo = false;
+        var wholeReviews = false;
+        var reviews = false;
+        for (String field : fields) {
+            field = field.trim();
+            if(field.equals(MOVIE_INFO)) {
+                wholeMovieInfo = true;
+            } else if(field.startsWith(MOVIE_INFO + ".")) {
+                movieInfoFields.add(field.substring(MOVIE_INFO.length() + 1));
+            } else if(field.equals(REVIEW_LIST)) {
+                reviews = true;
+                wholeReviews = true;
+            } else if(field.startsWith(REVIEW_LIST + ".")) {
+                reviews = true;
+                reviewFields.add(field.substring(REVIEW_LIST.length() + 1));
+            }
+        }
+        if(!wholeMovieInfo && movieInfoFields.isEmpty()) {
+            movieInfoFields.add("movieInfoId");
+        }
+        return new MovieFieldSelection(wholeMovieInfo ? null : movieInfoFields, reviews,
+                wholeReviews || reviewFields.isEmpty() ? null : reviewFields);
+    }
+
+    List<String> getMovieInfoFields() {
+        return movieInfoFields;
+    }
+
+    boolean includesReviews() {
+        return reviews;
+    }
+
+    List<String> getReviewFields() {
+        return reviewFields;
+    }
+}
@@ -3,9 +3,20 @@ package com.reactivespring.controller;
 import com.reactivespring.client.MovieInfoRestClient;
 import com.reactivespring.client.ReviewRestClient;
 import com.reactivespring.domain.Movie;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieResult;
+import com.reactivespring.exception.MoviesInfoClientException;
+import com.reactivespring.resilience.Deadline;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
 @RestController
 @RequestMapping("/v1/movies")
 public class MovieServiceController {
@@ -13,18 +24,97 @@ public class MovieServiceController {
     MovieInfoRestClient movieInfoRestClient;
     ReviewRestClient reviewRestClient;
 
+    @Value("${movies.parallelFetch:true}")
+    private Boolean parallelFetch;
+
+    @Value("${movies.batch.concurrency:8}")
+    private Integer batchConcurrency;
+
+    @Value("${movies.batch.maxSize:100}")
+    private Integer batchMaxSize;
+
+    @Value("${movies.deadline.reviewReserve:100ms}")
+    private Duration reviewReserve;
+
     public MovieServiceController(MovieInfoRestClient movieInfoRestClient, ReviewRestClient reviewRestClient) {
         this.reviewRestClient = reviewRestClient;
         this.movieInfoRestClient = movieInfoRestClient;
     }
 
+    public void setParallelFetch(Boolean parallelFetch) {
+        this.parallelFetch = parallelFetch;
+    }
+
+    public void setReviewReserve(Duration reviewReserve) {
+        this.reviewReserve = reviewReserve;
+    }
+
     @GetMapping("/{id}")
-    public Mono<Movie> getMovieByID(@PathVariable("id") String movieId){
-        return movieInfoRestClient.getMovieInfobyId(movieId)
-                .flatMap(movieInfo -> {
-                    var reviewInfoMono = reviewRestClient.getReviewByMovieID(movieId)
-                            .collectList();
-                    return reviewInfoMono.map( reviews -> new Movie(movieInfo, reviews));
-                });
+    public Mono<Movie> getMovieByID(@PathVariable("id") String movieId,
+                                    @RequestParam(value = "fields", required = false) List<String> fields){
+        var selection = MovieFieldSelection.of(fields);
+        var movieInfoMono = movieInfoRestClient.getMovieInfobyId(movieId, selection.getMovieInfoFields());
+        if(!selection.includesReviews()) {
+            return movieInfoMono.map(movieInfo -> new Movie(movieInfo, null));
+        }
+        var reviewsMono = reviewsWithinDeadline(movieId, selection.getReviewFields());
+        if(parallelFetch) {
+            // reviews are fetched speculatively alongside the movie info, zip cancels them if the movie info lookup fails
+            return Mono.zip(movieInfoMono, reviewsMono, MovieServiceController::withMovieInfo);
+        }
+        return movieInfoMono
+                .flatMap(movieInfo -> reviewsMono.map(reviews -> withMovieInfo(movieInfo, reviews)));
+    }
+
+    /**
+     * The reviews of the movie, as a Movie without its movie info. When they have not arrived with
+     * only reviewReserve left of the request deadline, the Movie is answered without reviews and
+     * flagged as degraded rather than failing the whole request.
+     */
+    private Mono<Movie> reviewsWithinDeadline(String movieId, List<String> fields) {
+        var reviews = reviewRestClient.getReviewByMovieID(movieId, fields).collectList();
+        return Deadline.enforce(reviews, reviewReserve)
+                .map(reviewList -> new Movie(null, reviewList))
+                .onErrorResume(TimeoutException.class, ex -> Mono.just(new Movie(null, List.of(), true)));
+    }
+
+    private static Movie withMovieInfo(MovieInfo movieInfo, Movie movie) {
+        movie.setMovieInfo(movieInfo);
+        return movie;
+    }
+
+    @GetMapping
+    public Flux<MovieResult> getMoviesByIds(@RequestParam("ids") List<String> movieIds,
+                                            @RequestParam(value = "fields", required = false) List<String> fields){
+        return getMovies(movieIds, fields);
+    }
+
+    @PostMapping("/batch")
+    public Flux<MovieResult> getMoviesByIdsBatch(@RequestBody List<String> movieIds,
+                                                 @RequestParam(value = "fields", required = false) List<String> fields){
+        return getMovies(movieIds, fields);
+    }
+
+    /**
+     * Resolves every id with at most batchConcurrency lookups in flight, emitting results in the
+     * order of the passed in ids. An unknown id yields a not-found entry instead of failing the batch.
+     */
+    private Flux<MovieResult> getMovies(List<String> movieIds, List<String> fields) {
+        if(movieIds.size() > batchMaxSize) {
+            return Flux.error(new MoviesInfoClientException(
+                    "A batch can hold at most " + batchMaxSize + " ids, passed in : " + movieIds.size(),
+                    HttpStatus.BAD_REQUEST.value()));
+        }
+        return Flux.fromIterable(movieIds)
+                .flatMapSequential(movieId -> getMovieByID(movieId, fields)
+                                .map(movie -> new MovieResult(movieId, movie, true))
+                                .onErrorResume(MovieServiceController::isNotFound,
+                                        ex -> Mono.just(new MovieResult(movieId, null, false))),
+                        batchConcurrency);
+    }
+
+    private static boolean isNotFound(Throwable ex) {
+        return ex instanceof MoviesInfoClientException
+                && Integer.valueOf(HttpStatus.NOT_FOUND.value()).equals(((MoviesInfoClientException) ex).getStatusCode());
     }
 }
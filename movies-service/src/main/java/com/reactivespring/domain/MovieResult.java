@@ -0,0 +1,16 @@
+package com.reactivespring.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieResult {
+
+    private String movieId;
+    private Movie movie;
+    // false when there is no MovieInfo for movieId, movie is null in that case
+    private Boolean found;
+}
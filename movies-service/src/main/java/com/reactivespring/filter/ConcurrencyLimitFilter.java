@@ -0,0 +1,97 @@
+package com.reactivespring.filter;
+
+import com.reactivespring.resilience.AdaptiveConcurrencyLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Sheds load on /v1/movies before any work is done: once the adaptive limit of in flight requests is
+ * reached, new requests are answered with 503 right away instead of queueing on the event loop and
+ * in the downstream pools. The limit follows the measured latency of the requests it lets through,
+ * and only failures of this service itself cut it: 502 to 504 answers come from the downstreams or
+ * the caller's deadline, and requests failed fast by an open circuit give back their slot unmeasured.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+public class ConcurrencyLimitFilter implements WebFilter {
+
+    /**
+     * Set on the exchange of a request that failed fast without doing any work, e.g. on an open circuit.
+     */
+    public static final String FAIL_FAST_ATTRIBUTE = ConcurrencyLimitFilter.class.getName() + ".failFast";
+
+    private static final PathPattern LIMITED_PATHS = PathPatternParser.defaultInstance.parse("/v1/movies/**");
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final boolean enabled;
+    private final Counter rejected;
+    private final Counter dropped;
+
+    public ConcurrencyLimitFilter(@Value("${movies.concurrencyLimit.enabled:true}") boolean enabled,
+                                  @Value("${movies.concurrencyLimit.initialLimit:50}") int initialLimit,
+                                  @Value("${movies.concurrencyLimit.minLimit:10}") int minLimit,
+                                  @Value("${movies.concurrencyLimit.maxLimit:500}") int maxLimit,
+                                  @Value("${movies.concurrencyLimit.tolerance:2.0}") double tolerance,
+                                  @Value("${movies.concurrencyLimit.backoffRatio:0.9}") double backoffRatio,
+                                  @Value("${movies.concurrencyLimit.probeInterval:1000}") int probeInterval,
+                                  MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, tolerance, backoffRatio, probeInterval);
+        Gauge.builder("movies.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .register(meterRegistry);
+        Gauge.builder("movies.concurrency.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .register(meterRegistry);
+        this.rejected = meterRegistry.counter("movies.concurrency.rejected");
+        this.dropped = meterRegistry.counter("movies.concurrency.dropped");
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if(!enabled || !LIMITED_PATHS.matches(exchange.getRequest().getPath().pathWithinApplication())) {
+            return chain.filter(exchange);
+        }
+        if(!limiter.tryAcquire()) {
+            rejected.increment();
+            log.warn("Rejected {} at concurrency limit {}", exchange.getRequest().getPath(), limiter.getLimit());
+            var response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+            return response.setComplete();
+        }
+        var start = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> {
+                    if(signal == SignalType.CANCEL || exchange.getAttributes().containsKey(FAIL_FAST_ATTRIBUTE)) {
+                        limiter.release();
+                        return;
+                    }
+                    var status = exchange.getResponse().getStatusCode();
+                    // downstream failures are answered with 502 by the GlobalErrorHandler and do not count
+                    var failed = signal == SignalType.ON_ERROR || status == HttpStatus.INTERNAL_SERVER_ERROR;
+                    if(failed) {
+                        dropped.increment();
+                    }
+                    limiter.release(System.nanoTime() - start, failed);
+                });
+    }
+
+    public AdaptiveConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+}
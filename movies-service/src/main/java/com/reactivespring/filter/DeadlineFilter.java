@@ -0,0 +1,47 @@
+package com.reactivespring.filter;
+
+import com.reactivespring.resilience.Deadline;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Starts the deadline of every request, from the X-Request-Timeout header (milliseconds) when the
+ * caller sent one and from the default budget otherwise, never more than the maximum budget.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class DeadlineFilter implements WebFilter {
+
+    @Value("${movies.deadline.defaultBudget:3s}")
+    private Duration defaultBudget;
+
+    @Value("${movies.deadline.maxBudget:30s}")
+    private Duration maxBudget;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        var budget = budget(exchange.getRequest().getHeaders().getFirst(Deadline.HEADER));
+        return chain.filter(exchange)
+                .contextWrite(context -> context.put(Deadline.class, Deadline.after(budget)));
+    }
+
+    private Duration budget(String header) {
+        if(header == null) {
+            return defaultBudget;
+        }
+        try {
+            var budget = Duration.ofMillis(Long.parseLong(header.trim()));
+            return budget.compareTo(maxBudget) > 0 ? maxBudget : budget;
+        } catch (NumberFormatException e) {
+            return defaultBudget;
+        }
+    }
+}
@@ -3,11 +3,18 @@ package com.reactivespring.globalerrorhandler;
 import com.reactivespring.exception.MoviesInfoClientException;
 import com.reactivespring.exception.MoviesInfoServerException;
 import com.reactivespring.exception.ReviewsClientException;
+import com.reactivespring.exception.ReviewsServerException;
+import com.reactivespring.filter.ConcurrencyLimitFilter;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.util.concurrent.TimeoutException;
 
 @ControllerAdvice
 @Slf4j
@@ -19,8 +26,31 @@ public class GlobalErrorHandler {
         return ResponseEntity.status(exception.getStatusCode()).body(exception.getMessage());
     }
 
+    @ExceptionHandler(CallNotPermittedException.class)
+    public ResponseEntity<String> handleCallNotPermittedException(CallNotPermittedException exception, ServerWebExchange exchange) {
+        log.error("Exception caught in handleCallNotPermittedException:{} ",exception.getMessage());
+        exchange.getAttributes().put(ConcurrencyLimitFilter.FAIL_FAST_ATTRIBUTE, true);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(exception.getMessage());
+    }
+
+    @ExceptionHandler(TimeoutException.class)
+    public ResponseEntity<String> handleTimeoutException(TimeoutException exception) {
+        log.error("Exception caught in handleTimeoutException:{} ",exception.getMessage());
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body("Request deadline exceeded");
+    }
+
+    /**
+     * A downstream that failed or could not be reached is a bad gateway, not a failure of this
+     * service, the ConcurrencyLimitFilter only cuts its limit on the latter.
+     */
+    @ExceptionHandler({MoviesInfoServerException.class, ReviewsServerException.class, WebClientRequestException.class})
+    public ResponseEntity<String> handleServerException(RuntimeException exception) {
+        log.error("Exception caught in handleServerException:{} ",exception.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(exception.getMessage());
+    }
+
     @ExceptionHandler(RuntimeException.class)
-    public ResponseEntity<String> handleRuntimeException(MoviesInfoServerException exception) {
+    public ResponseEntity<String> handleRuntimeException(RuntimeException exception) {
         log.error("Exception caught in handleRuntimeException:{} ",exception.getMessage());
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(exception.getMessage());
     }
@@ -0,0 +1,100 @@
+package com.reactivespring.resilience;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that adapts to the measured latency, in the style of the gradient limiters: the
+ * ratio between the lowest latency seen recently (no queueing) and the latency of a request tells
+ * whether requests are queueing somewhere. While latency stays within tolerance of the baseline the
+ * limit grows by sqrt(limit), when it rises the limit shrinks in proportion, and every failed
+ * request cuts it multiplicatively (AIMD). The baseline is re-probed every probeInterval samples so
+ * it can follow a downstream that got slower for good.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double SMOOTHING = 0.2;
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double backoffRatio;
+    private final int probeInterval;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+
+    private long minRttNanos = Long.MAX_VALUE;
+    private int samples;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance,
+                                      double backoffRatio, int probeInterval) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.backoffRatio = backoffRatio;
+        this.probeInterval = probeInterval;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * Takes a slot when fewer than limit requests are in flight. Every acquired slot must be given back
+     * with one of the release methods.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            var current = inFlight.get();
+            if(current >= getLimit()) {
+                return false;
+            }
+            if(inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives back a slot without a sample, for requests that were cancelled by the caller.
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Gives back a slot and adjusts the limit with the latency of the request, dropped being a request
+     * that failed on the server side.
+     */
+    public void release(long rttNanos, boolean dropped) {
+        var inFlightBefore = inFlight.getAndDecrement();
+        update(rttNanos, dropped, inFlightBefore);
+    }
+
+    private synchronized void update(long rttNanos, boolean dropped, int inFlightBefore) {
+        double newLimit;
+        if(dropped) {
+            newLimit = limit * backoffRatio;
+        } else {
+            if(++samples >= probeInterval) {
+                samples = 0;
+                minRttNanos = rttNanos;
+            }
+            minRttNanos = Math.min(minRttNanos, Math.max(1, rttNanos));
+            // a half used limit says nothing about how much more the service could take
+            if(inFlightBefore * 2 < limit && rttNanos <= tolerance * minRttNanos) {
+                return;
+            }
+            var gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * minRttNanos / rttNanos));
+            newLimit = limit * gradient + Math.sqrt(limit);
+            newLimit = limit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,50 @@
+package com.reactivespring.resilience;
+
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Point in time by which the response to the current request is due. The DeadlineFilter puts it in
+ * the Reactor context, the rest clients pass what is left of it on to the downstream services as the
+ * X-Request-Timeout header (milliseconds) and stop waiting once it is spent.
+ */
+public class Deadline {
+
+    public static final String HEADER = "X-Request-Timeout";
+
+    private final long deadlineNanos;
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static Deadline after(Duration budget) {
+        return new Deadline(System.nanoTime() + budget.toNanos());
+    }
+
+    public static Optional<Deadline> from(ContextView context) {
+        return context.getOrEmpty(Deadline.class);
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, deadlineNanos - System.nanoTime()));
+    }
+
+    /**
+     * Fails the mono with a TimeoutException once only reserve is left of the deadline of the
+     * subscribing request, leaving the caller that much time to answer with what it has. Unchanged
+     * when the request has no deadline.
+     */
+    public static <T> Mono<T> enforce(Mono<T> mono, Duration reserve) {
+        return Mono.deferContextual(context -> from(context)
+                .map(deadline -> mono.timeout(max(Duration.ZERO, deadline.remaining().minus(reserve))))
+                .orElse(mono));
+    }
+
+    private static Duration max(Duration first, Duration second) {
+        return first.compareTo(second) >= 0 ? first : second;
+    }
+}
@@ -0,0 +1,46 @@
+package com.reactivespring.resilience;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import reactor.util.retry.RetryBackoffSpec;
+
+import java.time.Duration;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Guards the calls to one downstream with a circuit breaker and bounded retries. Every attempt goes
+ * through the circuit breaker, so retries are counted as failures too and stop as soon as the
+ * circuit opens, an open circuit fails the call right away with a CallNotPermittedException instead
+ * of waiting on a dead downstream. Only errors matching retryable are retried, after an exponential
+ * backoff with jitter so the retries of concurrent callers do not arrive in waves.
+ */
+public class DownstreamGuard {
+
+    private static final double RETRY_JITTER = 0.5;
+
+    private final CircuitBreaker circuitBreaker;
+    private final RetryBackoffSpec retry;
+
+    public DownstreamGuard(CircuitBreaker circuitBreaker, int maxRetries, Duration retryBackoff, Predicate<Throwable> retryable) {
+        this.circuitBreaker = circuitBreaker;
+        this.retry = Retry.backoff(maxRetries, retryBackoff)
+                .maxBackoff(retryBackoff.multipliedBy(10))
+                .jitter(RETRY_JITTER)
+                .filter(retryable)
+                // callers map the downstream exceptions to responses, keep them as they are
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    public <T> Mono<T> protect(Supplier<Mono<T>> call) {
+        return Mono.defer(call)
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                .retryWhen(retry);
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+}
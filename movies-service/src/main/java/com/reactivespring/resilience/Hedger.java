@@ -0,0 +1,124 @@
+package com.reactivespring.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Hedges idempotent downstream calls: when the first attempt has not answered within the configured
+ * percentile of recent latencies, a second attempt is started and whichever answers first wins, the
+ * other one is cancelled. Hedges are paid for from a token bucket that every call tops up by
+ * budgetRatio, so hedging never adds more than that share of extra load, even when the downstream is
+ * slow across the board.
+ * Counts calls, hedges fired, hedges won and hedges skipped for lack of budget as
+ * movies.hedge.{requests,fired,won,skipped}, tagged with the downstream name.
+ */
+public class Hedger {
+
+    static final int MIN_SAMPLES = 20;
+
+    private static final long TOKEN = 1_000_000L;
+    private static final long MAX_TOKENS = 10 * TOKEN;
+
+    private final boolean enabled;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long maxDelayNanos;
+    private final long tokensPerCall;
+
+    private final long[] latencies;
+    private int samples;
+    private int next;
+    private volatile long delayNanos;
+
+    private final AtomicLong tokens = new AtomicLong();
+
+    private final Counter requests;
+    private final Counter fired;
+    private final Counter won;
+    private final Counter skipped;
+
+    public Hedger(String name, boolean enabled, double percentile, Duration minDelay, Duration maxDelay,
+                  double budgetRatio, int windowSize, MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.tokensPerCall = (long) (budgetRatio * TOKEN);
+        this.latencies = new long[windowSize];
+        // no latencies seen yet, only hedge the calls that are really slow
+        this.delayNanos = maxDelayNanos;
+        this.requests = meterRegistry.counter("movies.hedge.requests", "downstream", name);
+        this.fired = meterRegistry.counter("movies.hedge.fired", "downstream", name);
+        this.won = meterRegistry.counter("movies.hedge.won", "downstream", name);
+        this.skipped = meterRegistry.counter("movies.hedge.skipped", "downstream", name);
+    }
+
+    public <T> Mono<T> hedge(Supplier<Mono<T>> attempt) {
+        if(!enabled) {
+            return attempt.get();
+        }
+        return Mono.defer(() -> {
+            requests.increment();
+            addTokens();
+            var start = System.nanoTime();
+            var primary = attempt.get()
+                    .doOnSuccess(value -> recordLatency(System.nanoTime() - start));
+            var hedged = Mono.delay(Duration.ofNanos(delayNanos))
+                    .flatMap(tick -> {
+                        if(!tryAcquireToken()) {
+                            skipped.increment();
+                            return Mono.<T>never();
+                        }
+                        fired.increment();
+                        return attempt.get()
+                                .doOnSuccess(value -> {
+                                    won.increment();
+                                    // the primary is at least this slow, keep that in the window
+                                    recordLatency(System.nanoTime() - start);
+                                })
+                                // a failed hedge must not fail the call, the primary decides
+                                .onErrorResume(ex -> Mono.never());
+                    });
+            return Mono.firstWithSignal(primary, hedged);
+        });
+    }
+
+    public Duration hedgeDelay() {
+        return Duration.ofNanos(delayNanos);
+    }
+
+    synchronized void recordLatency(long nanos) {
+        latencies[next] = nanos;
+        next = (next + 1) % latencies.length;
+        samples = Math.min(samples + 1, latencies.length);
+        // sorting the window on every call is too costly, refresh the delay every tenth of the window
+        if(samples >= MIN_SAMPLES && next % Math.max(1, latencies.length / 10) == 0) {
+            var window = Arrays.copyOf(latencies, samples);
+            Arrays.sort(window);
+            var index = (int) Math.ceil(percentile * samples) - 1;
+            delayNanos = Math.max(minDelayNanos, Math.min(maxDelayNanos, window[Math.max(0, index)]));
+        }
+    }
+
+    private void addTokens() {
+        tokens.getAndUpdate(current -> Math.min(MAX_TOKENS, current + tokensPerCall));
+    }
+
+    private boolean tryAcquireToken() {
+        while (true) {
+            var current = tokens.get();
+            if(current < TOKEN) {
+                return false;
+            }
+            if(tokens.compareAndSet(current, current - TOKEN)) {
+                return true;
+            }
+        }
+    }
+}
@@ -1,8 +1,18 @@
 package com.reactivespring.controller;
 
+import com.github.tomakehurst.wiremock.matching.RequestPatternBuilder;
+import com.reactivespring.cache.ReactiveLookupCache;
 import com.reactivespring.domain.Movie;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieResult;
+import com.reactivespring.domain.Review;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.cloud.contract.wiremock.AutoConfigureWireMock;
@@ -10,19 +20,24 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
+import java.util.List;
 import java.util.Objects;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @ActiveProfiles("test")
 @AutoConfigureWebTestClient
+@AutoConfigureMetrics
 @AutoConfigureWireMock(port = 8084) // spin up a httpserver in port 8084
 @TestPropertySource(
         properties = {
                 "restClient.moviesInfoUrl=http://localhost:8084/v1/movieinfos",
-                "restClient.reviewsUrl=http://localhost:8084/v1/reviews"
+                "restClient.reviewsUrl=http://localhost:8084/v1/reviews",
+                "restClient.http.reviews.responseTimeout=1500ms"
         }
 )
 public class MoviesControllerIntgTest {
@@ -30,6 +45,28 @@ public class MoviesControllerIntgTest {
     @Autowired
     WebTestClient webTestClient;
 
+    @Autowired
+    MovieServiceController movieServiceController;
+
+    @Autowired
+    ReactiveLookupCache<String, MovieInfo> movieInfoCache;
+
+    @Autowired
+    ReactiveLookupCache<String, List<Review>> reviewCache;
+
+    @Autowired
+    CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        movieInfoCache.invalidateAll();
+        reviewCache.invalidateAll();
+        circuitBreakerRegistry.getAllCircuitBreakers().forEach(CircuitBreaker::reset);
+    }
+
     @Test
     void retrieveMovieById() {
         //given
@@ -113,4 +150,384 @@ public class MoviesControllerIntgTest {
                 });;
 
     }
+
+    @Test
+    void retrieveMoviesByIds() {
+        //given
+        stubFor(get(urlEqualTo("/v1/movieinfos/abc"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("movieinfo.json")));
+
+        stubFor(get(urlEqualTo("/v1/movieinfos/def"))
+                .willReturn(aResponse()
+                        .withStatus(404)));
+
+        stubFor(get(urlPathEqualTo("/v1/reviews"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("reviews.json")));
+
+        //when
+        webTestClient
+                .get()
+                .uri("/v1/movies?ids={ids}", "def,abc")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(MovieResult.class)
+                .consumeWith(listEntityExchangeResult -> {
+                    var results = Objects.requireNonNull(listEntityExchangeResult.getResponseBody());
+                    assertEquals(2, results.size());
+                    assertEquals("def", results.get(0).getMovieId());
+                    assertEquals(false, results.get(0).getFound());
+                    assertNull(results.get(0).getMovie());
+                    assertEquals("abc", results.get(1).getMovieId());
+                    assertEquals(true, results.get(1).getFound());
+                    assertEquals("Batman Begins", results.get(1).getMovie().getMovieInfo().getName());
+                });
+    }
+
+    @Test
+    void retrieveMoviesByIds_batch() {
+        //given
+        stubFor(get(urlEqualTo("/v1/movieinfos/abc"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("movieinfo.json")));
+
+        stubFor(get(urlPathEqualTo("/v1/reviews"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("reviews.json")));
+
+        //when
+        webTestClient
+                .post()
+                .uri("/v1/movies/batch")
+                .bodyValue(List.of("abc", "abc"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(MovieResult.class)
+                .hasSize(2);
+    }
+
+    @Test
+    void retrieveMovieById_parallelFetch() {
+        //given
+        var movieId = "abc";
+        var delay = 500;
+        stubFor(get(urlEqualTo("/v1/movieinfos" + "/" + movieId))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("movieinfo.json")
+                        .withFixedDelay(delay)));
+
+        stubFor(get(urlPathEqualTo("/v1/reviews"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("reviews.json")
+                        .withFixedDelay(delay)));
+
+        try {
+            movieServiceController.setParallelFetch(false);
+            resetAllRequests();
+            retrieveMovie(movieId);
+            // the reviews are only requested once the delayed movie info answered
+            assertTrue(reviewsRequestedAfterMovieInfo() >= delay);
+
+            movieServiceController.setParallelFetch(true);
+            resetAllRequests();
+            retrieveMovie(movieId);
+            // both requests reached the downstream before either response was released
+            assertTrue(Math.abs(reviewsRequestedAfterMovieInfo()) < delay);
+        } finally {
+            movieServiceController.setParallelFetch(true);
+        }
+    }
+
+    /**
+     * Millis between the first movie info and the first reviews request WireMock received.
+     */
+    private static long reviewsRequestedAfterMovieInfo() {
+        return firstRequested(getRequestedFor(urlPathEqualTo("/v1/reviews")))
+                - firstRequested(getRequestedFor(urlPathMatching("/v1/movieinfos/.*")));
+    }
+
+    private static long firstRequested(RequestPatternBuilder pattern) {
+        return findAll(pattern).stream()
+                .mapToLong(request -> request.getLoggedDate().getTime())
+                .min()
+                .orElseThrow();
+    }
+
+    @Test
+    void retrieveMovieById_reviewResponseTimeout() {
+        //given
+        var movieId = "abc";
+        stubFor(get(urlEqualTo("/v1/movieinfos" + "/" + movieId))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("movieinfo.json")));
+
+        stubFor(get(urlPathEqualTo("/v1/reviews"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("reviews.json")
+                        .withFixedDelay(10000)));
+
+        //when
+        var start = System.currentTimeMillis();
+        webTestClient
+                .get()
+                .uri("/v1/movies/{id}", movieId)
+                // deadline well past the retries so the response timeout is what gives up
+                .header("X-Request-Timeout", "20000")
+                .exchange()
+                .expectStatus().is5xxServerError();
+
+        // every attempt, retries included, gives up after the review response timeout instead of waiting for the stub
+        assertTrue(System.currentTimeMillis() - start < 10000);
+    }
+
+    @Test
+    void retrieveMovieById_reviewsPastDeadline_degraded() {
+        //given
+        var movieId = "abc";
+        stubFor(get(urlEqualTo("/v1/movieinfos" + "/" + movieId))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("movieinfo.json")));
+
+        stubFor(get(urlPathEqualTo("/v1/reviews"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("reviews.json")
+                        .withFixedDelay(3000)));
+
+        //when
+        var start = System.currentTimeMillis();
+        webTestClient
+                .get()
+                .uri("/v1/movies/{id}", movieId)
+                .header("X-Request-Timeout", "1000")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Movie.class)
+                .consumeWith(movieEntityExchangeResult -> {
+                    var movie = movieEntityExchangeResult.getResponseBody();
+                    assert Objects.requireNonNull(movie).getReviewList().size() == 0;
+                    assertEquals("Batman Begins", movie.getMovieInfo().getName());
+                    assertEquals(Boolean.TRUE, movie.getDegraded());
+                });
+
+        assertTrue(System.currentTimeMillis() - start < 3000);
+        // the remaining budget is passed on, minus what was spent before the call
+        verify(getRequestedFor(urlPathEqualTo("/v1/reviews")).withHeader("X-Request-Timeout", matching("\\d+")));
+    }
+
+    @Test
+    void retrieveMovieById_movieInfoPastDeadline() {
+        //given
+        var movieId = "abc";
+        stubFor(get(urlEqualTo("/v1/movieinfos" + "/" + movieId))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("movieinfo.json")
+                        .withFixedDelay(3000)));
+
+        stubFor(get(urlPathEqualTo("/v1/reviews"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("reviews.json")));
+
+        //when
+        webTestClient
+                .get()
+                .uri("/v1/movies/{id}", movieId)
+                .header("X-Request-Timeout", "500")
+                .exchange()
+                .expectStatus().isEqualTo(504);
+    }
+
+    @Test
+    void retrieveMovieById_5XX_retried() {
+        //given
+        var movieId = "abc";
+        stubFor(get(urlEqualTo("/v1/movieinfos" + "/" + movieId))
+                .willReturn(aResponse()
+                        .withStatus(500)
+                        .withBody("MovieInfo Service Unavailable")));
+
+        //when
+        webTestClient
+                .get()
+                .uri("/v1/movies/{id}", movieId)
+                .exchange()
+                .expectStatus().is5xxServerError()
+                .expectBody(String.class)
+                .isEqualTo("Internal Server Exception in MovieInfo Service");
+
+        // first attempt plus restClient.resilience.movieInfo.maxRetries
+        verify(3, getRequestedFor(urlEqualTo("/v1/movieinfos" + "/" + movieId)));
+    }
+
+    @Test
+    void retrieveMovieById_5XX_keepsConcurrencyLimit() {
+        //given
+        var movieId = "abc";
+        stubFor(get(urlEqualTo("/v1/movieinfos" + "/" + movieId))
+                .willReturn(aResponse()
+                        .withStatus(500)
+                        .withBody("MovieInfo Service Unavailable")));
+        var dropped = meterRegistry.counter("movies.concurrency.dropped").count();
+
+        //when
+        webTestClient
+                .get()
+                .uri("/v1/movies/{id}", movieId)
+                .exchange()
+                .expectStatus().isEqualTo(502);
+
+        // a failing downstream is not an overload of this service
+        assertEquals(dropped, meterRegistry.counter("movies.concurrency.dropped").count());
+    }
+
+    @Test
+    void retrieveMovieById_circuitOpen() {
+        //given
+        var movieId = "abc";
+        circuitBreakerRegistry.circuitBreaker("movieInfo").transitionToOpenState();
+
+        //when
+        webTestClient
+                .get()
+                .uri("/v1/movies/{id}", movieId)
+                .exchange()
+                .expectStatus().isEqualTo(503);
+
+        verify(0, getRequestedFor(urlEqualTo("/v1/movieinfos" + "/" + movieId)));
+    }
+
+    @Test
+    void prometheusMetrics() {
+        //given
+        var movieId = "abc";
+        stubFor(get(urlEqualTo("/v1/movieinfos" + "/" + movieId))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("movieinfo.json")));
+
+        stubFor(get(urlPathEqualTo("/v1/reviews"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("reviews.json")));
+        retrieveMovie(movieId);
+
+        //when
+        var metrics = webTestClient
+                .get()
+                .uri("/actuator/prometheus")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        //then
+        assertTrue(Objects.requireNonNull(metrics).contains("uri=\"/v1/movies/{id}\""));
+        assertTrue(metrics.contains("http_client_requests_seconds_bucket{application=\"movies-service\""));
+        assertTrue(metrics.contains("downstream=\"movieInfo\""));
+        assertTrue(metrics.contains("downstream=\"reviews\""));
+        assertTrue(metrics.contains("cache_gets_total{application=\"movies-service\",cache=\"movieInfo\""));
+    }
+
+    private void retrieveMovie(String movieId) {
+        movieInfoCache.invalidateAll();
+        reviewCache.invalidateAll();
+        webTestClient
+                .get()
+                .uri("/v1/movies/{id}", movieId)
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    void retrieveMovieById_cached() {
+        //given
+        var movieId = "abc";
+        stubFor(get(urlEqualTo("/v1/movieinfos" + "/" + movieId))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("movieinfo.json")));
+
+        stubFor(get(urlPathEqualTo("/v1/reviews"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("reviews.json")));
+
+        //when
+        for (int i = 0; i < 3; i++) {
+            webTestClient
+                    .get()
+                    .uri("/v1/movies/{id}", movieId)
+                    .exchange()
+                    .expectStatus().isOk();
+        }
+
+        //then
+        verify(1, getRequestedFor(urlEqualTo("/v1/movieinfos" + "/" + movieId)));
+        verify(1, getRequestedFor(urlPathEqualTo("/v1/reviews")));
+    }
+
+    @Test
+    void retrieveMovieById_404_cached() {
+        //given
+        var movieId = "def";
+        stubFor(get(urlEqualTo("/v1/movieinfos" + "/" + movieId))
+                .willReturn(aResponse()
+                        .withStatus(404)));
+
+        stubFor(get(urlPathEqualTo("/v1/reviews"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("reviews.json")));
+
+        //when
+        for (int i = 0; i < 3; i++) {
+            webTestClient
+                    .get()
+                    .uri("/v1/movies/{id}", movieId)
+                    .exchange()
+                    .expectStatus().isNotFound();
+        }
+
+        //then
+        verify(1, getRequestedFor(urlEqualTo("/v1/movieinfos" + "/" + movieId)));
+    }
+
+    @Test
+    void retrieveMovieById_fields() {
+        //given
+        var movieId = "abc";
+        stubFor(get(urlPathEqualTo("/v1/movieinfos" + "/" + movieId))
+                .withQueryParam("fields", equalTo("name,year"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"movieInfoId\": \"abc\", \"name\": \"Batman Begins\", \"year\": 2005}")));
+
+        //when
+        webTestClient
+                .get()
+                .uri("/v1/movies/{id}?fields={fields}", movieId, "movieInfo.name,movieInfo.year")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.movieInfo.name").isEqualTo("Batman Begins")
+                .jsonPath("$.movieInfo.cast").doesNotExist()
+                .jsonPath("$.reviewList").doesNotExist();
+
+        //then
+        verify(0, getRequestedFor(urlPathEqualTo("/v1/reviews")));
+    }
 }
@@ -0,0 +1,76 @@
+package com.reactivespring.cache;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReactiveLookupCacheTest {
+
+    ReactiveLookupCache<String, String> cache = new ReactiveLookupCache<>(100, Duration.ofMinutes(1), Duration.ofMinutes(1),
+            ex -> ex instanceof IllegalArgumentException);
+
+    @Test
+    void get_cachesValue() {
+        var loads = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            StepVerifier.create(cache.get("abc", key -> Mono.fromSupplier(() -> key + loads.incrementAndGet())))
+                    .expectNext("abc1")
+                    .verifyComplete();
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals(2, cache.stats().hitCount());
+        assertEquals(1, cache.stats().missCount());
+    }
+
+    @Test
+    void get_cachesNegativeLookup() {
+        var loads = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            StepVerifier.create(cache.get("def", key -> Mono.<String>error(new IllegalArgumentException("not found"))
+                            .doOnSubscribe(subscription -> loads.incrementAndGet())))
+                    .expectErrorMessage("not found")
+                    .verify();
+        }
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_doesNotCacheOtherErrors() {
+        var loads = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            StepVerifier.create(cache.get("ghi", key -> Mono.<String>error(new IllegalStateException("server error"))
+                            .doOnSubscribe(subscription -> loads.incrementAndGet())))
+                    .expectError(IllegalStateException.class)
+                    .verify();
+        }
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_expiresNegativeLookup() {
+        var shortNegativeCache = new ReactiveLookupCache<String, String>(100, Duration.ofMinutes(1), Duration.ofMillis(50),
+                ex -> ex instanceof IllegalArgumentException);
+        var loads = new AtomicInteger();
+
+        StepVerifier.create(shortNegativeCache.get("def", key -> Mono.<String>error(new IllegalArgumentException("not found"))
+                        .doOnSubscribe(subscription -> loads.incrementAndGet())))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+
+        StepVerifier.create(Mono.delay(Duration.ofMillis(100))
+                        .then(shortNegativeCache.get("def", key -> Mono.fromSupplier(() -> key + loads.incrementAndGet()))))
+                .expectNext("def2")
+                .verifyComplete();
+    }
+}
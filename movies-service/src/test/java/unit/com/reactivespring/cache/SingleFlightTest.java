@@ -0,0 +1,86 @@
+package com.reactivespring.cache;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+    SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+    @Test
+    void execute_sharesInFlightLoad() {
+        var loads = new AtomicInteger();
+
+        var first = singleFlight.execute("abc", key -> Mono.delay(Duration.ofMillis(100))
+                .map(tick -> key + loads.incrementAndGet()));
+        var second = singleFlight.execute("abc", key -> Mono.delay(Duration.ofMillis(100))
+                .map(tick -> key + loads.incrementAndGet()));
+
+        StepVerifier.create(Mono.zip(first, second))
+                .assertNext(results -> {
+                    assertEquals("abc1", results.getT1());
+                    assertEquals("abc1", results.getT2());
+                })
+                .verifyComplete();
+
+        assertEquals(1, loads.get());
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    void execute_startsNewLoadOnceCompleted() {
+        var loads = new AtomicInteger();
+
+        for (int i = 1; i <= 2; i++) {
+            StepVerifier.create(singleFlight.execute("abc", key -> Mono.fromSupplier(() -> key + loads.incrementAndGet())))
+                    .expectNext("abc" + i)
+                    .verifyComplete();
+        }
+    }
+
+    @Test
+    void execute_cancelsLoadWhenAllSubscribersLeave() {
+        var cancelled = new AtomicBoolean();
+
+        var first = singleFlight.execute("abc", key -> Mono.<String>never().doOnCancel(() -> cancelled.set(true)))
+                .subscribe();
+        var second = singleFlight.execute("abc", key -> Mono.<String>never().doOnCancel(() -> cancelled.set(true)))
+                .subscribe();
+
+        first.dispose();
+        assertFalse(cancelled.get());
+        assertEquals(1, singleFlight.inFlightCount());
+
+        second.dispose();
+        assertTrue(cancelled.get());
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    void execute_sharesError() {
+        var loads = new AtomicInteger();
+
+        var first = singleFlight.execute("abc", key -> Mono.delay(Duration.ofMillis(50))
+                .doOnSubscribe(subscription -> loads.incrementAndGet())
+                .then(Mono.<String>error(new IllegalStateException("server error"))));
+        var second = singleFlight.execute("abc", key -> Mono.<String>error(new IllegalStateException("other")));
+
+        StepVerifier.create(Mono.zipDelayError(first.onErrorReturn("failed"), second.onErrorReturn("failed")))
+                .assertNext(results -> {
+                    assertEquals("failed", results.getT1());
+                    assertEquals("failed", results.getT2());
+                })
+                .verifyComplete();
+
+        assertEquals(1, loads.get());
+    }
+}
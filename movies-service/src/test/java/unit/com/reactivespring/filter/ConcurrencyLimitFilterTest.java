@@ -0,0 +1,94 @@
+package com.reactivespring.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ConcurrencyLimitFilterTest {
+
+    ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(true, 2, 2, 10, 2.0, 0.9, 1000, new SimpleMeterRegistry());
+
+    @Test
+    void filter_rejectsBeyondLimit() {
+        var pending = Sinks.<Void>empty();
+        WebFilterChain slowChain = exchange -> pending.asMono();
+
+        var first = filter.filter(exchange("/v1/movies/abc"), slowChain).subscribe();
+        var second = filter.filter(exchange("/v1/movies/def"), slowChain).subscribe();
+
+        var rejected = exchange("/v1/movies/ghi");
+        StepVerifier.create(filter.filter(rejected, slowChain))
+                .verifyComplete();
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getResponse().getStatusCode());
+        assertEquals("1", rejected.getResponse().getHeaders().getFirst("Retry-After"));
+
+        pending.tryEmitEmpty();
+        assertEquals(0, filter.getLimiter().getInFlight());
+        first.dispose();
+        second.dispose();
+    }
+
+    @Test
+    void filter_ignoresOtherPaths() {
+        var pending = Sinks.<Void>empty();
+        WebFilterChain slowChain = exchange -> pending.asMono();
+        filter.filter(exchange("/v1/movies/abc"), slowChain).subscribe();
+        filter.filter(exchange("/v1/movies/def"), slowChain).subscribe();
+
+        var other = exchange("/v1/cache/stats");
+        StepVerifier.create(filter.filter(other, exchange -> Mono.empty()))
+                .verifyComplete();
+        assertNull(other.getResponse().getStatusCode());
+        var samePrefix = exchange("/v1/moviesXYZ");
+        StepVerifier.create(filter.filter(samePrefix, exchange -> Mono.empty()))
+                .verifyComplete();
+        assertNull(samePrefix.getResponse().getStatusCode());
+        pending.tryEmitEmpty();
+    }
+
+    @Test
+    void filter_onlyOwnFailuresLowerLimit() {
+        var meterRegistry = new SimpleMeterRegistry();
+        var limitFilter = new ConcurrencyLimitFilter(true, 20, 2, 100, 2.0, 0.5, 1000, meterRegistry);
+
+        StepVerifier.create(limitFilter.filter(exchange("/v1/movies/abc"), respondWith(HttpStatus.SERVICE_UNAVAILABLE, true)))
+                .verifyComplete();
+        // a request failed fast leaves no sample behind
+        assertEquals(20, limitFilter.getLimiter().getLimit());
+        StepVerifier.create(limitFilter.filter(exchange("/v1/movies/abc"), respondWith(HttpStatus.GATEWAY_TIMEOUT, false)))
+                .verifyComplete();
+        StepVerifier.create(limitFilter.filter(exchange("/v1/movies/abc"), respondWith(HttpStatus.BAD_GATEWAY, false)))
+                .verifyComplete();
+        assertEquals(0, meterRegistry.counter("movies.concurrency.dropped").count());
+
+        var limit = limitFilter.getLimiter().getLimit();
+        StepVerifier.create(limitFilter.filter(exchange("/v1/movies/abc"), respondWith(HttpStatus.INTERNAL_SERVER_ERROR, false)))
+                .verifyComplete();
+        assertEquals(1, meterRegistry.counter("movies.concurrency.dropped").count());
+        assertEquals(limit / 2, limitFilter.getLimiter().getLimit());
+        assertEquals(0, limitFilter.getLimiter().getInFlight());
+    }
+
+    private static WebFilterChain respondWith(HttpStatus status, boolean failFast) {
+        return exchange -> {
+            if(failFast) {
+                exchange.getAttributes().put(ConcurrencyLimitFilter.FAIL_FAST_ATTRIBUTE, true);
+            }
+            exchange.getResponse().setStatusCode(status);
+            return Mono.empty();
+        };
+    }
+
+    private static MockServerWebExchange exchange(String path) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(path));
+    }
+}
@@ -0,0 +1,89 @@
+package com.reactivespring.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long BASELINE = Duration.ofMillis(10).toNanos();
+
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 100, 2.0, 0.9, 100_000);
+
+    private void runAtLimit(long rttNanos, int rounds) {
+        for (int round = 0; round < rounds; round++) {
+            var acquired = 0;
+            while (limiter.tryAcquire()) {
+                acquired++;
+            }
+            for (int i = 0; i < acquired; i++) {
+                limiter.release(rttNanos, false);
+            }
+        }
+    }
+
+    @Test
+    void tryAcquire_rejectsAtLimit() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+
+        assertFalse(limiter.tryAcquire());
+        assertEquals(10, limiter.getInFlight());
+
+        limiter.release();
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void limit_growsWhileLatencyStaysAtBaseline() {
+        runAtLimit(BASELINE, 20);
+
+        assertTrue(limiter.getLimit() > 10);
+    }
+
+    @Test
+    void limit_shrinksWhenLatencyRises() {
+        runAtLimit(BASELINE, 20);
+        var grownLimit = limiter.getLimit();
+
+        // requests now queue somewhere, latency is ten times the baseline
+        runAtLimit(BASELINE * 10, 20);
+
+        assertTrue(limiter.getLimit() < grownLimit);
+    }
+
+    @Test
+    void limit_backsOffOnDrops() {
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire();
+            limiter.release(BASELINE, true);
+        }
+
+        assertEquals(5, limiter.getLimit());
+    }
+
+    @Test
+    void limit_neverBelowMinLimit() {
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire();
+            limiter.release(BASELINE, true);
+        }
+
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void limit_notGrownWhenUnderused() {
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire();
+            limiter.release(BASELINE, false);
+        }
+
+        assertEquals(10, limiter.getLimit());
+    }
+}
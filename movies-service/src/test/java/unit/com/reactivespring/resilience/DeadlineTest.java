@@ -0,0 +1,54 @@
+package com.reactivespring.resilience;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeadlineTest {
+
+    @Test
+    void enforce_reserveLeft() {
+        var slow = Mono.delay(Duration.ofSeconds(1)).thenReturn("reviews");
+
+        var result = Deadline.enforce(slow, Duration.ofMillis(150))
+                .contextWrite(context -> context.put(Deadline.class, Deadline.after(Duration.ofMillis(200))));
+
+        StepVerifier.create(result)
+                .expectError(TimeoutException.class)
+                .verify(Duration.ofMillis(500));
+    }
+
+    @Test
+    void enforce_withinDeadline() {
+        var fast = Mono.delay(Duration.ofMillis(10)).thenReturn("reviews");
+
+        var result = Deadline.enforce(fast, Duration.ZERO)
+                .contextWrite(context -> context.put(Deadline.class, Deadline.after(Duration.ofSeconds(1))));
+
+        StepVerifier.create(result)
+                .expectNext("reviews")
+                .verifyComplete();
+    }
+
+    @Test
+    void enforce_noDeadline() {
+        var slow = Mono.delay(Duration.ofMillis(300)).thenReturn("reviews");
+
+        StepVerifier.create(Deadline.enforce(slow, Duration.ofSeconds(1)))
+                .expectNext("reviews")
+                .verifyComplete();
+    }
+
+    @Test
+    void remaining() {
+        var deadline = Deadline.after(Duration.ofSeconds(1));
+
+        assertTrue(deadline.remaining().compareTo(Duration.ofSeconds(1)) <= 0);
+        assertTrue(Deadline.after(Duration.ofMillis(-5)).remaining().isZero());
+    }
+}
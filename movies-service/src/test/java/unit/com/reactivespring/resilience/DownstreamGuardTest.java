@@ -0,0 +1,105 @@
+package com.reactivespring.resilience;
+
+import com.reactivespring.exception.MoviesInfoClientException;
+import com.reactivespring.exception.MoviesInfoServerException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DownstreamGuardTest {
+
+    CircuitBreaker circuitBreaker = CircuitBreaker.of("test", CircuitBreakerConfig.custom()
+            .slidingWindowSize(4)
+            .minimumNumberOfCalls(4)
+            .failureRateThreshold(50)
+            .waitDurationInOpenState(Duration.ofMillis(200))
+            .permittedNumberOfCallsInHalfOpenState(1)
+            .ignoreExceptions(MoviesInfoClientException.class)
+            .build());
+
+    DownstreamGuard downstreamGuard = new DownstreamGuard(circuitBreaker, 2, Duration.ofMillis(10),
+            ex -> ex instanceof MoviesInfoServerException);
+
+    @Test
+    void protect_retriesServerErrors() {
+        var attempts = new AtomicInteger();
+
+        var result = downstreamGuard.protect(() -> attempts.incrementAndGet() < 3
+                ? Mono.error(new MoviesInfoServerException("Internal Server Exception in MovieInfo Service"))
+                : Mono.just("movieInfo"));
+
+        StepVerifier.create(result)
+                .expectNext("movieInfo")
+                .verifyComplete();
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void protect_retriesExhausted_keepsError() {
+        var attempts = new AtomicInteger();
+
+        var result = downstreamGuard.protect(() -> {
+            attempts.incrementAndGet();
+            return Mono.error(new MoviesInfoServerException("Internal Server Exception in MovieInfo Service"));
+        });
+
+        StepVerifier.create(result)
+                .expectError(MoviesInfoServerException.class)
+                .verify();
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void protect_clientErrorsNotRetriedNorCounted() {
+        var attempts = new AtomicInteger();
+
+        for (int i = 0; i < 5; i++) {
+            StepVerifier.create(downstreamGuard.protect(() -> {
+                        attempts.incrementAndGet();
+                        return Mono.error(new MoviesInfoClientException("There is no Movie Info with id: abc", 404));
+                    }))
+                    .expectError(MoviesInfoClientException.class)
+                    .verify();
+        }
+
+        assertEquals(5, attempts.get());
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void protect_openCircuitFailsFast_thenProbes() throws InterruptedException {
+        var attempts = new AtomicInteger();
+        var failing = downstreamGuard.<String>protect(() -> {
+            attempts.incrementAndGet();
+            return Mono.error(new MoviesInfoServerException("Internal Server Exception in MovieInfo Service"));
+        });
+
+        // the fourth failed attempt opens the circuit, the retries stop there
+        StepVerifier.create(failing).expectError().verify();
+        StepVerifier.create(failing).expectError(CallNotPermittedException.class).verify();
+        assertEquals(4, attempts.get());
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        StepVerifier.create(downstreamGuard.protect(() -> {
+                    attempts.incrementAndGet();
+                    return Mono.just("movieInfo");
+                }))
+                .expectError(CallNotPermittedException.class)
+                .verify();
+        assertEquals(4, attempts.get());
+
+        Thread.sleep(250);
+        StepVerifier.create(downstreamGuard.protect(() -> Mono.just("movieInfo")))
+                .expectNext("movieInfo")
+                .verifyComplete();
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+}
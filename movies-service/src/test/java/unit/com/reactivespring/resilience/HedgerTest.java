@@ -0,0 +1,107 @@
+package com.reactivespring.resilience;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HedgerTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private Hedger hedger(boolean enabled, double budgetRatio) {
+        return new Hedger("test", enabled, 0.9, Duration.ofMillis(1), Duration.ofMillis(50),
+                budgetRatio, 100, meterRegistry);
+    }
+
+    private double count(String name) {
+        return meterRegistry.counter(name, "downstream", "test").count();
+    }
+
+    @Test
+    void hedge_disabled() {
+        var attempts = new AtomicInteger();
+
+        var result = hedger(false, 1.0).hedge(() -> Mono.delay(Duration.ofMillis(100))
+                .map(tick -> "attempt" + attempts.incrementAndGet()));
+
+        StepVerifier.create(result)
+                .expectNext("attempt1")
+                .verifyComplete();
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void hedge_slowPrimary_hedgeWins() {
+        var attempts = new AtomicInteger();
+
+        var result = hedger(true, 1.0).hedge(() -> {
+            var attempt = attempts.incrementAndGet();
+            var latency = attempt == 1 ? Duration.ofSeconds(5) : Duration.ofMillis(10);
+            return Mono.delay(latency).map(tick -> "attempt" + attempt);
+        });
+
+        StepVerifier.create(result)
+                .expectNext("attempt2")
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+        assertEquals(2, attempts.get());
+        assertEquals(1.0, count("movies.hedge.fired"));
+        assertEquals(1.0, count("movies.hedge.won"));
+    }
+
+    @Test
+    void hedge_fastPrimary_noHedge() {
+        var attempts = new AtomicInteger();
+
+        var result = hedger(true, 1.0).hedge(() -> Mono.just("attempt" + attempts.incrementAndGet()));
+
+        StepVerifier.create(result)
+                .expectNext("attempt1")
+                .verifyComplete();
+        assertEquals(1, attempts.get());
+        assertEquals(0.0, count("movies.hedge.fired"));
+    }
+
+    @Test
+    void hedge_budgetExhausted() {
+        var attempts = new AtomicInteger();
+
+        var result = hedger(true, 0.0).hedge(() -> Mono.delay(Duration.ofMillis(200))
+                .map(tick -> "attempt" + attempts.incrementAndGet()));
+
+        StepVerifier.create(result)
+                .expectNext("attempt1")
+                .verifyComplete();
+        assertEquals(1, attempts.get());
+        assertEquals(0.0, count("movies.hedge.fired"));
+        assertEquals(1.0, count("movies.hedge.skipped"));
+    }
+
+    @Test
+    void hedge_primaryErrorIsNotDelayed() {
+        var result = hedger(true, 1.0).hedge(() -> Mono.<String>error(new IllegalStateException("down")));
+
+        StepVerifier.create(result)
+                .expectErrorMessage("down")
+                .verify(Duration.ofMillis(40));
+    }
+
+    @Test
+    void hedgeDelay_followsPercentile() {
+        var hedger = new Hedger("test", true, 0.9, Duration.ofMillis(1), Duration.ofSeconds(1),
+                0.05, 100, meterRegistry);
+        assertEquals(Duration.ofSeconds(1), hedger.hedgeDelay());
+
+        for (int i = 1; i <= 100; i++) {
+            hedger.recordLatency(Duration.ofMillis(i).toNanos());
+        }
+
+        assertEquals(Duration.ofMillis(90), hedger.hedgeDelay());
+    }
+}
@@ -0,0 +1,71 @@
+package com.learnreactiveprogramming.benchmark;
+
+import com.learnreactiveprogramming.service.OrderedParallel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OrderedParallel over a CPU bound function, one run per rail count: the time per run should drop
+ * about linearly with the rails up to the number of cores, and stay flat past it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class OrderedParallelBenchmark {
+
+    private static final int ELEMENTS = 2000;
+
+    @Param({"1", "2", "4", "8"})
+    int rails;
+
+    @Param({"50000"})
+    int workPerElement;
+
+    private Scheduler scheduler;
+    private OrderedParallel<Long, Long> operator;
+
+    @Setup
+    public void setUp() {
+        scheduler = Schedulers.newParallel("ordered-parallel-benchmark", rails);
+        operator = OrderedParallel.<Long>builder()
+                .rails(rails)
+                .scheduler(scheduler)
+                .build(this::work);
+    }
+
+    @TearDown
+    public void tearDown() {
+        scheduler.dispose();
+    }
+
+    @Benchmark
+    public Long orderedParallel() {
+        return Flux.range(0, ELEMENTS)
+                .map(Long::valueOf)
+                .transform(operator)
+                .reduce(0L, Long::sum)
+                .block();
+    }
+
+    private long work(long seed) {
+        var x = seed + 1;
+        for (int i = 0; i < workPerElement; i++) {
+            x ^= x << 13;
+            x ^= x >>> 7;
+            x ^= x << 17;
+        }
+        return x;
+    }
+}
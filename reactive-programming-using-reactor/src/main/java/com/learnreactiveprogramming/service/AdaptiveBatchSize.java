@@ -0,0 +1,51 @@
+package com.learnreactiveprogramming.service;
+
+import java.time.Duration;
+
+/**
+ * Batch size driven by the time the downstream takes to process a batch, additive increase and
+ * multiplicative decrease (AIMD): a full batch processed within the target latency grows the size by
+ * increment, a batch over the target shrinks it to decreaseFactor times the size of that batch. The
+ * decrease is relative to the slow batch rather than to the current size, as the batches formed ahead
+ * of it are just as slow and must not compound it. Batches closed by their time bound before filling
+ * up say nothing about a larger size and leave it unchanged.
+ */
+public class AdaptiveBatchSize {
+
+    private final int minSize;
+    private final int maxSize;
+    private final int increment;
+    private final double decreaseFactor;
+    private final long targetLatencyNanos;
+
+    private volatile int size;
+
+    public AdaptiveBatchSize(int minSize, int maxSize, int initialSize, int increment, double decreaseFactor,
+                             Duration targetLatency) {
+        if(minSize < 1 || maxSize < minSize || initialSize < minSize || initialSize > maxSize) {
+            throw new IllegalArgumentException("Expected 1 <= minSize <= initialSize <= maxSize, passed in : "
+                    + minSize + ", " + initialSize + ", " + maxSize);
+        }
+        if(decreaseFactor <= 0 || decreaseFactor >= 1) {
+            throw new IllegalArgumentException("decreaseFactor must be in ]0, 1[, passed in : " + decreaseFactor);
+        }
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.increment = increment;
+        this.decreaseFactor = decreaseFactor;
+        this.targetLatencyNanos = targetLatency.toNanos();
+        this.size = initialSize;
+    }
+
+    public int get() {
+        return size;
+    }
+
+    public synchronized void onBatchProcessed(int batchSize, Duration latency) {
+        if(latency.toNanos() > targetLatencyNanos) {
+            size = Math.max(minSize, Math.min(size, (int) (batchSize * decreaseFactor)));
+        } else if(batchSize >= size) {
+            size = Math.min(maxSize, size + increment);
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.learnreactiveprogramming.service;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Groups the elements of a Flux in batches and hands them to a batch processor, e.g. a Mongo insertMany
+ * or a lookup by ids, one batch at a time and in order:
+ * <pre>
+ * reviews.transform(MicroBatcher.&lt;Review&gt;builder()
+ *         .maxSize(500)
+ *         .maxWait(Duration.ofMillis(20))
+ *         .targetLatency(Duration.ofMillis(50))
+ *         .build(batch -&gt; repository.saveAll(batch)))
+ * </pre>
+ * A batch closes when it reaches the current batch size or maxWait after its first element, whichever
+ * comes first. The batch size adapts to the time the processor takes, see {@link AdaptiveBatchSize}, so
+ * batches grow while the processor keeps up and shrink when it slows down.
+ * Backpressure is preserved: elements are requested from the source one batch at a time, and at most
+ * two batches are held ahead of the one being processed. An error of the source or of the processor fails the Flux,
+ * dropping the batch being formed.
+ */
+public class MicroBatcher<T, R> implements Function<Flux<T>, Flux<R>> {
+
+    private final AdaptiveBatchSize batchSize;
+    private final Duration maxWait;
+    private final Scheduler scheduler;
+    private final Function<List<T>, Publisher<R>> processor;
+
+    private MicroBatcher(Builder<T> builder, Function<List<T>, Publisher<R>> processor) {
+        this.batchSize = new AdaptiveBatchSize(builder.minSize, builder.maxSize, builder.initialSize,
+                builder.increment, builder.decreaseFactor, builder.targetLatency);
+        this.maxWait = builder.maxWait;
+        this.scheduler = builder.scheduler;
+        this.processor = processor;
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    @Override
+    public Flux<R> apply(Flux<T> source) {
+        return batches(source)
+                // prefetch 1: besides the batch being processed, one batch waits and one is being formed
+                .concatMap(this::process, 1);
+    }
+
+    /**
+     * The current batch size, shared by every subscription of this batcher.
+     */
+    public int currentBatchSize() {
+        return batchSize.get();
+    }
+
+    Flux<List<T>> batches(Flux<T> source) {
+        return Flux.create(sink -> {
+            var subscriber = new BatchingSubscriber(sink);
+            sink.onRequest(requested -> subscriber.drain());
+            sink.onDispose(subscriber::dispose);
+            source.subscribe(subscriber);
+        });
+    }
+
+    private Flux<R> process(List<T> batch) {
+        return Flux.defer(() -> {
+            var start = scheduler.now(TimeUnit.NANOSECONDS);
+            return Flux.from(processor.apply(batch))
+                    .doOnComplete(() -> batchSize.onBatchProcessed(batch.size(),
+                            Duration.ofNanos(scheduler.now(TimeUnit.NANOSECONDS) - start)));
+        });
+    }
+
+    /**
+     * Collects the elements of one subscription into batches. Source elements, timeouts and downstream
+     * requests come from different threads: the state is guarded by the subscriber's monitor, and one
+     * thread at a time drains batches to the sink, the others leaving their work to it, so a synchronous
+     * source does not recurse through request and onNext for every batch.
+     */
+    private final class BatchingSubscriber extends BaseSubscriber<T> {
+
+        private final FluxSink<List<T>> sink;
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private final List<T> buffer = new ArrayList<>();
+        // requested from the source and not received yet
+        private long outstanding;
+        private int size;
+        // incremented with every emitted batch, so the timeout of an emitted batch cannot close the next one
+        private long generation;
+        private boolean due;
+        private boolean sourceDone;
+        private boolean terminated;
+        private Disposable timeout;
+
+        private BatchingSubscriber(FluxSink<List<T>> sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public Context currentContext() {
+            return Context.of(sink.contextView());
+        }
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            long missing;
+            synchronized (this) {
+                missing = startBatch();
+            }
+            if(missing > 0) {
+                request(missing);
+            }
+        }
+
+        @Override
+        protected void hookOnNext(T value) {
+            synchronized (this) {
+                outstanding--;
+                buffer.add(value);
+                if(buffer.size() == 1) {
+                    scheduleTimeout();
+                }
+            }
+            drain();
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            synchronized (this) {
+                sourceDone = true;
+            }
+            drain();
+        }
+
+        @Override
+        protected void hookOnError(Throwable throwable) {
+            synchronized (this) {
+                terminated = true;
+                buffer.clear();
+                cancelTimeout();
+            }
+            sink.error(throwable);
+        }
+
+        @Override
+        protected void hookOnCancel() {
+            synchronized (this) {
+                terminated = true;
+                buffer.clear();
+                cancelTimeout();
+            }
+        }
+
+        void drain() {
+            if(wip.getAndIncrement() != 0) {
+                return;
+            }
+            var missed = 1;
+            do {
+                while (true) {
+                    List<T> batch;
+                    long missing = 0;
+                    boolean complete;
+                    synchronized (this) {
+                        if(terminated) {
+                            return;
+                        }
+                        batch = pollBatch();
+                        complete = batch == null && sourceDone && buffer.isEmpty();
+                        if(complete) {
+                            terminated = true;
+                        } else if(batch != null && !sourceDone) {
+                            missing = startBatch();
+                        }
+                    }
+                    if(complete) {
+                        sink.complete();
+                        return;
+                    }
+                    if(batch == null) {
+                        break;
+                    }
+                    sink.next(batch);
+                    if(missing > 0) {
+                        request(missing);
+                    }
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        /**
+         * Takes the next batch off the buffer when it is complete and the downstream asked for it.
+         */
+        private List<T> pollBatch() {
+            if(buffer.isEmpty() || sink.requestedFromDownstream() == 0
+                    || !(buffer.size() >= size || due || sourceDone)) {
+                return null;
+            }
+            var count = Math.min(buffer.size(), size);
+            var batch = new ArrayList<>(buffer.subList(0, count));
+            buffer.subList(0, count).clear();
+            generation++;
+            due = false;
+            cancelTimeout();
+            if(!buffer.isEmpty()) {
+                scheduleTimeout();
+            }
+            return batch;
+        }
+
+        /**
+         * Sizes the next batch and returns how many elements to request from the source for it.
+         */
+        private long startBatch() {
+            size = batchSize.get();
+            // elements still outstanding from a batch closed by its timeout count towards this one
+            var missing = size - buffer.size() - outstanding;
+            if(missing <= 0) {
+                return 0;
+            }
+            outstanding += missing;
+            return missing;
+        }
+
+        private void scheduleTimeout() {
+            var batchGeneration = generation;
+            timeout = scheduler.schedule(() -> onTimeout(batchGeneration), maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        private void onTimeout(long batchGeneration) {
+            synchronized (this) {
+                if(batchGeneration != generation || terminated) {
+                    return;
+                }
+                due = true;
+            }
+            drain();
+        }
+
+        private void cancelTimeout() {
+            if(timeout != null) {
+                timeout.dispose();
+                timeout = null;
+            }
+        }
+    }
+
+    public static final class Builder<T> {
+
+        private int minSize = 1;
+        private int maxSize = 100;
+        private Integer initialSize;
+        private Integer increment;
+        private double decreaseFactor = 0.5;
+        private Duration maxWait = Duration.ofMillis(10);
+        private Duration targetLatency = Duration.ofMillis(100);
+        private Scheduler scheduler = Schedulers.parallel();
+
+        private Builder() {
+        }
+
+        public Builder<T> minSize(int minSize) {
+            this.minSize = minSize;
+            return this;
+        }
+
+        public Builder<T> maxSize(int maxSize) {
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        /**
+         * Batch size to start with, minSize by default.
+         */
+        public Builder<T> initialSize(int initialSize) {
+            this.initialSize = initialSize;
+            return this;
+        }
+
+        /**
+         * Growth of the batch size after a full batch processed within the target latency, a 32nd of
+         * maxSize by default.
+         */
+        public Builder<T> increment(int increment) {
+            this.increment = increment;
+            return this;
+        }
+
+        public Builder<T> decreaseFactor(double decreaseFactor) {
+            this.decreaseFactor = decreaseFactor;
+            return this;
+        }
+
+        public Builder<T> maxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+            return this;
+        }
+
+        public Builder<T> targetLatency(Duration targetLatency) {
+            this.targetLatency = targetLatency;
+            return this;
+        }
+
+        /**
+         * Scheduler of the batch timeouts and clock of the processing latencies.
+         */
+        public Builder<T> scheduler(Scheduler scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        public <R> MicroBatcher<T, R> build(Function<List<T>, Publisher<R>> processor) {
+            if(initialSize == null) {
+                initialSize = minSize;
+            }
+            if(increment == null) {
+                increment = Math.max(1, maxSize / 32);
+            }
+            return new MicroBatcher<>(this, processor);
+        }
+    }
+}
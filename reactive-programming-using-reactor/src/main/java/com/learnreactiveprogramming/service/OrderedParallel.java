@@ -0,0 +1,313 @@
+package com.learnreactiveprogramming.service;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.ParallelFlux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Applies a CPU bound function to the elements of a Flux on several cores and emits the results in
+ * the order of the source, applied with Flux.transform:
+ * <pre>
+ * reviews.transform(OrderedParallel.&lt;Review&gt;builder()
+ *         .key(Review::getMovieInfoId)
+ *         .build(this::enrich))
+ * </pre>
+ * Elements are spread over rails by the hash of their key and every rail runs on a worker of the
+ * scheduler (ParallelFlux.runOn), so elements of the same key are processed one at a time and in order,
+ * while different keys are processed in parallel. The results go through a reorder buffer that
+ * emits them in source order.
+ * At most window elements are between the source and the downstream at any time: the source is
+ * requested one element per element emitted, which bounds the reorder buffer and preserves
+ * backpressure. A slow element, or a hot key, holds back the others once window elements got ahead of
+ * it, {@link #stats()} tells how full the reorder buffer runs.
+ */
+public class OrderedParallel<T, R> implements Function<Flux<T>, Flux<R>> {
+
+    private final int rails;
+    private final int window;
+    private final Scheduler scheduler;
+    private final Function<? super T, ?> key;
+    private final Function<? super T, ? extends R> processor;
+    private final ReorderBufferStats stats = new ReorderBufferStats();
+
+    private OrderedParallel(Builder<T> builder, Function<? super T, ? extends R> processor) {
+        this.rails = builder.rails;
+        this.window = builder.window;
+        this.scheduler = builder.scheduler;
+        this.key = builder.key;
+        this.processor = processor;
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * Occupancy of the reorder buffers of every subscription of this operator.
+     */
+    public ReorderBufferStats stats() {
+        return stats;
+    }
+
+    @Override
+    public Flux<R> apply(Flux<T> source) {
+        return Flux.defer(() -> {
+            var reorder = new ReorderSubscriber();
+            var admitted = Flux.<Indexed<T>>create(sink -> {
+                var gate = new AdmissionSubscriber(sink);
+                reorder.gate = gate;
+                sink.onDispose(gate::dispose);
+                source.subscribe(gate);
+            });
+            // every rail sees the admitted elements and keeps the ones of its keys
+            var shared = admitted.publish(window).refCount(rails);
+            @SuppressWarnings("unchecked")
+            Publisher<Indexed<T>>[] railSources = new Publisher[rails];
+            for (int rail = 0; rail < rails; rail++) {
+                var railIndex = rail;
+                railSources[rail] = shared.filter(element -> element.rail == railIndex);
+            }
+            var processed = ParallelFlux.from(railSources)
+                    .runOn(scheduler, window)
+                    .map(element -> new Indexed<R>(element.index, element.rail, processor.apply(element.value)))
+                    .sequential(window);
+            return Flux.<R>create(sink -> {
+                reorder.sink = sink;
+                sink.onRequest(requested -> reorder.drain());
+                sink.onDispose(reorder::dispose);
+                processed.subscribe(reorder);
+            });
+        });
+    }
+
+    private int rail(T value) {
+        var hash = Objects.hashCode(key.apply(value));
+        // spread the high bits, keys like ids often differ in those only
+        return Math.floorMod(hash ^ (hash >>> 16), rails);
+    }
+
+    private static final class Indexed<V> {
+
+        private final long index;
+        private final int rail;
+        private final V value;
+
+        private Indexed(long index, int rail, V value) {
+            this.index = index;
+            this.rail = rail;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Numbers the source elements and admits at most window of them ahead of the last emitted result.
+     */
+    private final class AdmissionSubscriber extends BaseSubscriber<T> {
+
+        private final FluxSink<Indexed<T>> sink;
+        private long nextIndex;
+
+        private AdmissionSubscriber(FluxSink<Indexed<T>> sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public Context currentContext() {
+            return Context.of(sink.contextView());
+        }
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            request(window);
+        }
+
+        @Override
+        protected void hookOnNext(T value) {
+            sink.next(new Indexed<>(nextIndex++, rail(value), value));
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            sink.complete();
+        }
+
+        @Override
+        protected void hookOnError(Throwable throwable) {
+            sink.error(throwable);
+        }
+
+        void release(long emitted) {
+            request(emitted);
+        }
+    }
+
+    /**
+     * Puts the processed elements back in source order. Indexes in flight span at most window values,
+     * so a ring of window slots holds them all. Processed elements and downstream requests come from
+     * different threads: the state is guarded by the subscriber's monitor and one thread at a time
+     * drains results to the sink.
+     */
+    private final class ReorderSubscriber extends BaseSubscriber<Indexed<R>> {
+
+        private final Object[] slots = new Object[window];
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile FluxSink<R> sink;
+        private volatile AdmissionSubscriber gate;
+
+        private long nextIndex;
+        private int occupancy;
+        private boolean done;
+        private boolean terminated;
+
+        @Override
+        public Context currentContext() {
+            return Context.of(sink.contextView());
+        }
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            // bounded by the admission of the source
+            requestUnbounded();
+        }
+
+        @Override
+        protected void hookOnNext(Indexed<R> element) {
+            synchronized (this) {
+                slots[(int) (element.index % window)] = element.value;
+                occupancy++;
+                stats.record(occupancy);
+            }
+            drain();
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            synchronized (this) {
+                done = true;
+            }
+            drain();
+        }
+
+        @Override
+        protected void hookOnError(Throwable throwable) {
+            synchronized (this) {
+                terminated = true;
+            }
+            sink.error(throwable);
+        }
+
+        @Override
+        protected void hookOnCancel() {
+            synchronized (this) {
+                terminated = true;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        void drain() {
+            if(wip.getAndIncrement() != 0) {
+                return;
+            }
+            var missed = 1;
+            do {
+                var emitted = 0L;
+                while (true) {
+                    R value;
+                    boolean complete;
+                    synchronized (this) {
+                        if(terminated) {
+                            return;
+                        }
+                        var slot = (int) (nextIndex % window);
+                        // the sink lowers the demand on every next, what is left is still open
+                        value = sink.requestedFromDownstream() > 0 ? (R) slots[slot] : null;
+                        complete = value == null && done && occupancy == 0;
+                        if(value != null) {
+                            slots[slot] = null;
+                            nextIndex++;
+                            occupancy--;
+                            stats.update(occupancy);
+                        } else if(complete) {
+                            terminated = true;
+                        }
+                    }
+                    if(complete) {
+                        sink.complete();
+                        return;
+                    }
+                    if(value == null) {
+                        break;
+                    }
+                    sink.next(value);
+                    emitted++;
+                }
+                if(emitted > 0) {
+                    gate.release(emitted);
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+
+    public static final class Builder<T> {
+
+        private int rails = Schedulers.DEFAULT_POOL_SIZE;
+        private int window = 256;
+        private Scheduler scheduler = Schedulers.parallel();
+        private Function<? super T, ?> key = Function.identity();
+
+        private Builder() {
+        }
+
+        /**
+         * Number of elements processed in parallel at most, the number of cores by default.
+         */
+        public Builder<T> rails(int rails) {
+            this.rails = rails;
+            return this;
+        }
+
+        /**
+         * Capacity of the reorder buffer, i.e. how many elements may get ahead of the oldest one still
+         * being processed.
+         */
+        public Builder<T> window(int window) {
+            this.window = window;
+            return this;
+        }
+
+        /**
+         * Scheduler the rails run on, it needs at least as many workers as there are rails.
+         */
+        public Builder<T> scheduler(Scheduler scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        /**
+         * Elements of the same key are processed one at a time and in order, every element is its own
+         * key by default.
+         */
+        public Builder<T> key(Function<? super T, ?> key) {
+            this.key = key;
+            return this;
+        }
+
+        public <R> OrderedParallel<T, R> build(Function<? super T, ? extends R> processor) {
+            if(rails < 1 || window < rails) {
+                throw new IllegalArgumentException("Expected 1 <= rails <= window, passed in : " + rails + ", " + window);
+            }
+            return new OrderedParallel<>(this, processor);
+        }
+    }
+}
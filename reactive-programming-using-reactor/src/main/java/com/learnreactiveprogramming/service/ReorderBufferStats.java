@@ -0,0 +1,43 @@
+package com.learnreactiveprogramming.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Occupancy of a reorder buffer, i.e. the processed elements waiting for an earlier one to finish
+ * before they can be emitted, sampled on every processed element. A buffer that sits close to its
+ * capacity means one slow element, or one hot key, holds back the others: its max reaching the capacity
+ * means the source was throttled. Meant to be published as gauges, e.g. with Micrometer
+ * Gauge.builder("ordered.parallel.reorder.occupancy", stats, ReorderBufferStats::current).
+ */
+public class ReorderBufferStats {
+
+    private final AtomicInteger current = new AtomicInteger();
+    private final AtomicInteger max = new AtomicInteger();
+    private final LongAdder samples = new LongAdder();
+    private final LongAdder total = new LongAdder();
+
+    void record(int occupancy) {
+        current.set(occupancy);
+        max.accumulateAndGet(occupancy, Math::max);
+        samples.increment();
+        total.add(occupancy);
+    }
+
+    void update(int occupancy) {
+        current.set(occupancy);
+    }
+
+    public int current() {
+        return current.get();
+    }
+
+    public int max() {
+        return max.get();
+    }
+
+    public double average() {
+        var count = samples.sum();
+        return count == 0 ? 0 : (double) total.sum() / count;
+    }
+}
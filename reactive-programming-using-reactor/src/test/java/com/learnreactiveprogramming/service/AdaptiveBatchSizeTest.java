@@ -0,0 +1,62 @@
+package com.learnreactiveprogramming.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AdaptiveBatchSizeTest {
+
+    AdaptiveBatchSize batchSize = new AdaptiveBatchSize(2, 20, 10, 2, 0.5, Duration.ofMillis(100));
+
+    @Test
+    void fullBatchWithinTarget_grows() {
+        batchSize.onBatchProcessed(10, Duration.ofMillis(50));
+
+        assertEquals(12, batchSize.get());
+    }
+
+    @Test
+    void partialBatchWithinTarget_unchanged() {
+        batchSize.onBatchProcessed(3, Duration.ofMillis(50));
+
+        assertEquals(10, batchSize.get());
+    }
+
+    @Test
+    void overTarget_shrinks() {
+        batchSize.onBatchProcessed(10, Duration.ofMillis(150));
+        assertEquals(5, batchSize.get());
+
+        batchSize.onBatchProcessed(5, Duration.ofMillis(150));
+        batchSize.onBatchProcessed(2, Duration.ofMillis(150));
+        assertEquals(2, batchSize.get());
+    }
+
+    @Test
+    void batchesFormedBeforeDecrease_doNotCompound() {
+        batchSize.onBatchProcessed(10, Duration.ofMillis(150));
+        batchSize.onBatchProcessed(10, Duration.ofMillis(150));
+        batchSize.onBatchProcessed(10, Duration.ofMillis(150));
+
+        assertEquals(5, batchSize.get());
+    }
+
+    @Test
+    void boundedByMaxSize() {
+        for (int i = 0; i < 10; i++) {
+            batchSize.onBatchProcessed(batchSize.get(), Duration.ofMillis(1));
+        }
+
+        assertEquals(20, batchSize.get());
+    }
+
+    @Test
+    void invalidSizes() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveBatchSize(0, 10, 5, 1, 0.5, Duration.ofMillis(100)));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveBatchSize(5, 10, 20, 1, 0.5, Duration.ofMillis(100)));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveBatchSize(1, 10, 5, 1, 1.5, Duration.ofMillis(100)));
+    }
+}
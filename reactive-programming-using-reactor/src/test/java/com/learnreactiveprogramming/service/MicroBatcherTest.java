@@ -0,0 +1,127 @@
+package com.learnreactiveprogramming.service;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MicroBatcherTest {
+
+    @Test
+    void sizeBounded() {
+        var batcher = MicroBatcher.<Integer>builder()
+                .minSize(4)
+                .maxSize(4)
+                .build(batch -> Mono.just(batch));
+
+        StepVerifier.create(Flux.range(1, 10).transform(batcher))
+                .expectNext(List.of(1, 2, 3, 4))
+                .expectNext(List.of(5, 6, 7, 8))
+                .expectNext(List.of(9, 10))
+                .verifyComplete();
+    }
+
+    @Test
+    void timeBounded() {
+        StepVerifier.withVirtualTime(() -> Flux.interval(Duration.ofMillis(100))
+                        .take(5)
+                        .transform(MicroBatcher.<Long>builder()
+                                .minSize(10)
+                                .maxSize(10)
+                                .maxWait(Duration.ofMillis(250))
+                                .build(batch -> Mono.just(batch))))
+                .expectSubscription()
+                // the first element arrives at 100ms, its batch closes 250ms later with the elements so far
+                .expectNoEvent(Duration.ofMillis(349))
+                .thenAwait(Duration.ofMillis(1))
+                .expectNext(List.of(0L, 1L, 2L))
+                // the source completes at 500ms, before the timeout of the second batch
+                .thenAwait(Duration.ofMillis(150))
+                .expectNext(List.of(3L, 4L))
+                .verifyComplete();
+    }
+
+    @Test
+    void backpressure() {
+        var requested = new AtomicLong();
+        var batcher = MicroBatcher.<Integer>builder()
+                .minSize(4)
+                .maxSize(4)
+                .build(batch -> Mono.just(batch));
+
+        StepVerifier.create(Flux.range(1, 100).doOnRequest(requested::addAndGet).transform(batcher), 0)
+                .expectSubscription()
+                // the batch handed to the processor, one waiting for it and one formed, nothing more
+                .then(() -> assertEquals(12, requested.get()))
+                .thenRequest(1)
+                .expectNext(List.of(1, 2, 3, 4))
+                .then(() -> assertEquals(16, requested.get()))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void batchSize_growsWhileProcessorKeepsUp() {
+        var batcher = MicroBatcher.<Integer>builder()
+                .minSize(1)
+                .maxSize(64)
+                .increment(1)
+                .targetLatency(Duration.ofSeconds(1))
+                .build(batch -> Mono.just(batch.size()));
+
+        StepVerifier.create(Flux.range(1, 10_000).transform(batcher))
+                .thenConsumeWhile(size -> true)
+                .verifyComplete();
+
+        assertEquals(64, batcher.currentBatchSize());
+    }
+
+    @Test
+    void batchSize_followsProcessorLatency() {
+        var batcher = new AtomicReference<MicroBatcher<Integer, Integer>>();
+
+        // processing takes 10ms per element, the batch size that keeps within 100ms is 10
+        StepVerifier.withVirtualTime(() -> {
+                    batcher.set(MicroBatcher.<Integer>builder()
+                            .minSize(1)
+                            .maxSize(100)
+                            .increment(1)
+                            .decreaseFactor(0.5)
+                            .targetLatency(Duration.ofMillis(100))
+                            .build(batch -> Mono.delay(Duration.ofMillis(10L * batch.size())).thenReturn(batch.size())));
+                    return Flux.range(1, 2_000).transform(batcher.get());
+                })
+                .thenAwait(Duration.ofMinutes(5))
+                .recordWith(ArrayList::new)
+                .thenConsumeWhile(size -> true)
+                .consumeRecordedWith(sizes -> {
+                    assertEquals(2_000, sizes.stream().mapToInt(Integer::intValue).sum());
+                    assertTrue(sizes.stream().allMatch(size -> size <= 11));
+                })
+                .verifyComplete();
+
+        var batchSize = batcher.get().currentBatchSize();
+        assertTrue(batchSize >= 5 && batchSize <= 11, "batch size " + batchSize);
+    }
+
+    @Test
+    void sourceError() {
+        var batcher = MicroBatcher.<Integer>builder()
+                .minSize(4)
+                .maxSize(4)
+                .build(batch -> Mono.just(batch));
+
+        StepVerifier.create(Flux.range(1, 5).concatWith(Flux.error(new IllegalStateException("source failed"))).transform(batcher))
+                .expectNext(List.of(1, 2, 3, 4))
+                .verifyErrorMessage("source failed");
+    }
+}
@@ -0,0 +1,236 @@
+package com.learnreactiveprogramming.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderedParallelTest {
+
+    private static final int RAILS = 4;
+
+    private final Scheduler scheduler = Schedulers.newParallel("ordered-parallel-test", RAILS);
+
+    @AfterEach
+    void tearDown() {
+        scheduler.dispose();
+    }
+
+    @Test
+    void preservesOrder() {
+        var operator = OrderedParallel.<Integer>builder()
+                .rails(RAILS)
+                .window(64)
+                .scheduler(scheduler)
+                .build(value -> {
+                    LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(200_000));
+                    return value * 2;
+                });
+
+        var expected = IntStream.range(0, 1000).map(value -> value * 2).boxed().collect(Collectors.toList());
+
+        StepVerifier.create(Flux.range(0, 1000).transform(operator).collectList())
+                .expectNext(expected)
+                .verifyComplete();
+    }
+
+    @Test
+    void sequencesPerKey() {
+        var active = new ConcurrentHashMap<Integer, AtomicInteger>();
+        var seen = new ConcurrentHashMap<Integer, List<Integer>>();
+        var overlaps = new AtomicInteger();
+        var operator = OrderedParallel.<Integer>builder()
+                .rails(RAILS)
+                .window(64)
+                .scheduler(scheduler)
+                .key(value -> value % 10)
+                .build(value -> {
+                    var key = value % 10;
+                    if(active.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet() > 1) {
+                        overlaps.incrementAndGet();
+                    }
+                    seen.computeIfAbsent(key, k -> new ArrayList<>()).add(value);
+                    LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(100_000));
+                    active.get(key).decrementAndGet();
+                    return value;
+                });
+
+        StepVerifier.create(Flux.range(0, 500).transform(operator))
+                .expectNextSequence(IntStream.range(0, 500).boxed().collect(Collectors.toList()))
+                .verifyComplete();
+
+        assertEquals(0, overlaps.get());
+        assertEquals(10, seen.size());
+        for (Map.Entry<Integer, List<Integer>> entry : seen.entrySet()) {
+            var expected = IntStream.range(0, 500)
+                    .filter(value -> value % 10 == entry.getKey())
+                    .boxed()
+                    .collect(Collectors.toList());
+            assertEquals(expected, entry.getValue());
+        }
+    }
+
+    @Test
+    void boundsReorderBuffer() {
+        var produced = new AtomicLong();
+        var maxAhead = new AtomicLong();
+        var operator = OrderedParallel.<Integer>builder()
+                .rails(RAILS)
+                .window(16)
+                .scheduler(scheduler)
+                .build(value -> {
+                    // the first element holds back everything behind it
+                    if(value == 0) {
+                        LockSupport.parkNanos(Duration.ofMillis(200).toNanos());
+                    }
+                    return value;
+                });
+
+        var consumed = new AtomicLong();
+        StepVerifier.create(Flux.range(0, 200)
+                        .doOnNext(value -> produced.incrementAndGet())
+                        .transform(operator)
+                        .doOnNext(value -> maxAhead.accumulateAndGet(produced.get() - consumed.incrementAndGet(), Math::max)))
+                .expectNextCount(200)
+                .verifyComplete();
+
+        assertTrue(maxAhead.get() <= 16, "source ran " + maxAhead.get() + " elements ahead");
+        assertTrue(operator.stats().max() <= 16, "occupancy reached " + operator.stats().max());
+        // the admitted elements of the other rails waited for the slow one
+        assertTrue(operator.stats().max() >= 12, "occupancy reached " + operator.stats().max());
+        assertEquals(0, operator.stats().current());
+    }
+
+    @Test
+    void backpressure() {
+        var requested = new AtomicLong();
+        var operator = OrderedParallel.<Integer>builder()
+                .rails(RAILS)
+                .window(32)
+                .scheduler(scheduler)
+                .build(value -> value);
+
+        StepVerifier.create(Flux.range(0, 1000)
+                        .doOnRequest(requested::addAndGet)
+                        .transform(operator), 5)
+                .expectNext(0, 1, 2, 3, 4)
+                .thenAwait(Duration.ofMillis(100))
+                .then(() -> assertEquals(32 + 5, requested.get()))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void processorError() {
+        var operator = OrderedParallel.<Integer>builder()
+                .rails(RAILS)
+                .scheduler(scheduler)
+                .build(value -> {
+                    if(value == 5) {
+                        throw new IllegalStateException("Exception Occurred");
+                    }
+                    return value;
+                });
+
+        StepVerifier.create(Flux.range(0, 100).transform(operator))
+                .thenConsumeWhile(value -> value < 5)
+                .expectError(IllegalStateException.class)
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void drainsBufferedResultsOnRequest() {
+        var operator = OrderedParallel.<Integer>builder()
+                .rails(RAILS)
+                .window(64)
+                .scheduler(scheduler)
+                .build(value -> {
+                    if(value == 0) {
+                        LockSupport.parkNanos(Duration.ofMillis(100).toNanos());
+                    }
+                    return value;
+                });
+
+        // every result is in the reorder buffer by the time the requests come in
+        StepVerifier.create(Flux.range(0, 50).transform(operator), 0)
+                .thenAwait(Duration.ofMillis(300))
+                .thenRequest(10)
+                .expectNextCount(10)
+                .thenRequest(40)
+                .expectNextCount(40)
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void boundedDemand() {
+        var operator = OrderedParallel.<Integer>builder()
+                .rails(RAILS)
+                .scheduler(scheduler)
+                .build(value -> {
+                    if(value == 0) {
+                        LockSupport.parkNanos(Duration.ofMillis(100).toNanos());
+                    }
+                    return value;
+                });
+
+        StepVerifier.create(Flux.range(0, 200)
+                        .transform(operator)
+                        .publishOn(Schedulers.single(), 16))
+                .expectNextSequence(IntStream.range(0, 200).boxed().collect(Collectors.toList()))
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void runsRailsInParallel() {
+        var barrier = new CyclicBarrier(RAILS);
+        var running = new AtomicInteger();
+        var maxRunning = new AtomicInteger();
+        var threads = ConcurrentHashMap.<String>newKeySet();
+        var operator = OrderedParallel.<Integer>builder()
+                .rails(RAILS)
+                .scheduler(scheduler)
+                .build(value -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    threads.add(Thread.currentThread().getName());
+                    // the first element of every rail only gets through once all rails hold one
+                    if(value < RAILS) {
+                        try {
+                            barrier.await(5, TimeUnit.SECONDS);
+                        } catch (Exception ex) {
+                            throw new IllegalStateException(ex);
+                        }
+                    }
+                    running.decrementAndGet();
+                    return value;
+                });
+
+        StepVerifier.create(Flux.range(0, 400).transform(operator))
+                .expectNextCount(400)
+                .expectComplete()
+                .verify(Duration.ofSeconds(10));
+
+        assertEquals(RAILS, maxRunning.get());
+        assertEquals(RAILS, threads.size());
+    }
+}